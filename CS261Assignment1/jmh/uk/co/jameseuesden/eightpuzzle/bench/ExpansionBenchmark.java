@@ -0,0 +1,105 @@
+package uk.co.jameseuesden.eightpuzzle.bench;
+
+import uk.co.jameseuesden.eightpuzzle.AStar;
+import uk.co.jameseuesden.eightpuzzle.FileHandler;
+import uk.co.jameseuesden.eightpuzzle.GridState;
+import uk.co.jameseuesden.eightpuzzle.OpenList;
+import uk.co.jameseuesden.eightpuzzle.SolveResult;
+
+/**
+ * <p>
+ * Counts the states A* expands on each of the testStart files, with each
+ * heuristic and each way of breaking ties in the open list, run from the
+ * project directory, which holds the testStart and testGoal files:
+ * </p>
+ * <pre>
+ * gradle expansionCheck
+ * </pre>
+ * <p>
+ * Unlike times, counts of expanded states are the same on every machine,
+ * so they are checked against the counts from before A* ordered its open
+ * list by f = g + h, when it ordered by 2g + h. The run fails if any depth
+ * is not the shortest, or if the default tie break expands more states
+ * than the old ordering did.
+ * </p>
+ */
+public class ExpansionBenchmark {
+    private static final String[] STARTS = { "testStart1.txt",
+            "testStart2.txt", "testStart3.txt", "testStart4.txt",
+            "testStart5.txt", "testStart6.txt" };
+    private static final String[] GOALS = { "testGoal1.txt", "testGoal2.txt",
+            "testGoal3.txt", "testGoal4.txt", "testGoal4.txt",
+            "testGoal6.txt" };
+    private static final int[] DEPTHS = { 2, 4, 6, 31, 20, 38 };
+    private static final int[] HEURISTICS = { 1, 2, 3 };
+    private static final String[] HEURISTIC_NAMES = { "astar1", "astar2",
+            "astar3" };
+
+    /*
+     * States expanded when the open list was ordered by 2g + h, by start
+     * file then heuristic. -1 where the search ran out of memory, or, for
+     * the 15 puzzle with the weaker heuristics, was never run.
+     */
+    private static final int[][] BEFORE = { { 2, 2, 2 }, { 8, 9, 8 },
+            { 12, 13, 11 }, { 135497, 177760, 48479 }, { 3659, 14833, 807 },
+            { -1, -1, -1 } };
+
+    public static void main(String[] args) {
+        FileHandler fH = new FileHandler();
+        OpenList.TieBreak[] tieBreaks = OpenList.TieBreak.values();
+        StringBuilder header = new StringBuilder(String.format("%-15s %-7s %5s %10s",
+                "puzzle", "mode", "depth", "2g+h"));
+        for (OpenList.TieBreak tieBreak : tieBreaks) {
+            header.append(String.format(" %12s", tieBreak));
+        }
+        System.out.println(header);
+
+        boolean failed = false;
+        for (int p = 0; p < STARTS.length; p++) {
+            String start = fH.readFile(fH.newFile(STARTS[p]));
+            int rows = fH.getRows();
+            int cols = fH.getCols();
+            String goal = fH.readFile(fH.newFile(GOALS[p]));
+            if (start == null || goal == null) {
+                System.out.println("No " + STARTS[p] + " here, skipping it");
+                continue;
+            }
+            for (int h = 0; h < HEURISTICS.length; h++) {
+                // The 15 puzzle needs the pattern database to finish.
+                if (rows * cols > 9 && HEURISTICS[h] != 3) {
+                    continue;
+                }
+                StringBuilder line = new StringBuilder();
+                int depth = -1;
+                int[] expanded = new int[tieBreaks.length];
+                for (int t = 0; t < tieBreaks.length; t++) {
+                    AStar search = new AStar(new GridState(start, rows, cols),
+                            new GridState(goal, rows, cols), HEURISTICS[h]);
+                    search.setTieBreak(tieBreaks[t]);
+                    SolveResult result = search.findPath();
+                    expanded[t] = result.getExpandedStates();
+                    line.append(String.format(" %12d", expanded[t]));
+                    if (result.getDepth() != DEPTHS[p]) {
+                        depth = result.getDepth();
+                        failed = true;
+                    } else if (depth == -1) {
+                        depth = DEPTHS[p];
+                    }
+                }
+                int before = BEFORE[p][h];
+                if (before >= 0
+                        && expanded[OpenList.TieBreak.HIGH_G_LIFO.ordinal()] > before) {
+                    failed = true;
+                }
+                System.out.println(String.format("%-15s %-7s %5d %10s",
+                        STARTS[p], HEURISTIC_NAMES[h], depth,
+                        before < 0 ? "-" : Integer.toString(before))
+                        + line);
+            }
+        }
+        if (failed) {
+            System.out.println("FAILED: a depth was not the shortest, or more states were expanded than before");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package uk.co.jameseuesden.eightpuzzle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.jameseuesden.eightpuzzle.GridState;
+import uk.co.jameseuesden.eightpuzzle.Heuristic;
+import uk.co.jameseuesden.eightpuzzle.ManhattanHeuristic;
+import uk.co.jameseuesden.eightpuzzle.TileHeuristic;
+
+/**
+ * <p>
+ * The cost of a single heuristic call, worked out from scratch and as the
+ * change made by one move, over a few boards from the solved one to one of
+ * the hardest.
+ * </p>
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+    private static final int BOARDS = 4;
+
+    @Param({ "manhattan", "tile" })
+    public String heuristicName;
+
+    private Heuristic heuristic;
+    private GridState goal;
+    private GridState[] grids;
+    // The index each grid's blank is moved to for the delta.
+    private int[] targets;
+
+    @Setup
+    public void setUp() {
+        heuristic = heuristicName.equals("tile") ? new TileHeuristic()
+                : new ManhattanHeuristic();
+        goal = new GridState("123456780");
+        grids = new GridState[] { new GridState("867254301"),
+                new GridState("724506831"), new GridState("012345678"),
+                new GridState("123405786") };
+        targets = new int[BOARDS];
+        for (int i = 0; i < BOARDS; i++) {
+            int blank = grids[i].getBlankIndex();
+            targets[i] = grids[i].getSize().getNeighbours(blank)[0];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public void cost(Blackhole blackhole) {
+        for (int i = 0; i < BOARDS; i++) {
+            blackhole.consume(heuristic.getHeuristicCost(grids[i], goal));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public void delta(Blackhole blackhole) {
+        for (int i = 0; i < BOARDS; i++) {
+            GridState grid = grids[i];
+            blackhole.consume(heuristic.getHeuristicDelta(grid.getBoard(),
+                    targets[i], grid.getBlankIndex(), goal));
+        }
+    }
+}
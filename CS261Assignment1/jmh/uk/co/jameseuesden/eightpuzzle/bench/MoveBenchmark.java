@@ -0,0 +1,126 @@
+package uk.co.jameseuesden.eightpuzzle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.co.jameseuesden.eightpuzzle.GenericType;
+import uk.co.jameseuesden.eightpuzzle.GridState;
+import uk.co.jameseuesden.eightpuzzle.SolveResult;
+
+/**
+ * <p>
+ * Making the children of a state, one at a time with createChild and all of
+ * them with findChildren, over boards with the blank in a corner, on an edge
+ * and in the middle.
+ * </p>
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+    private static final int BOARDS = 4;
+
+    private MoveCounter counter;
+    private GridState[] grids;
+    private int[] targets;
+
+    @Setup
+    public void setUp() {
+        counter = new MoveCounter(new GridState("123456780"));
+        grids = new GridState[] { new GridState("867254301"),
+                new GridState("724506831"), new GridState("123405786"),
+                new GridState("123456780") };
+        targets = new int[BOARDS];
+        for (int i = 0; i < BOARDS; i++) {
+            int blank = grids[i].getBlankIndex();
+            targets[i] = grids[i].getSize().getNeighbours(blank)[0];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public void createChild(Blackhole blackhole) {
+        for (int i = 0; i < BOARDS; i++) {
+            int blank = grids[i].getBlankIndex();
+            blackhole.consume(counter.child(grids[i], blank, targets[i]
+                    - blank));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public void findChildren(Blackhole blackhole) {
+        counter.blackhole = blackhole;
+        for (int i = 0; i < BOARDS; i++) {
+            counter.findChildren(grids[i]);
+        }
+    }
+
+    /**
+     * <p>
+     * A search with no lists, that only makes children, so that move
+     * generation can be timed on its own.
+     * </p>
+     */
+    private static class MoveCounter extends GenericType {
+        private Blackhole blackhole;
+
+        MoveCounter(GridState goal) {
+            this.goal = goal;
+        }
+
+        GridState child(GridState parent, int zeroIndex, int direction) {
+            return createChild(parent, zeroIndex, direction);
+        }
+
+        public SolveResult findPath() {
+            return null;
+        }
+
+        public void movement(int zeroIndex, int direction, GridState current) {
+            if (rulesForMovement(zeroIndex, direction)) {
+                blackhole.consume(createChild(current, zeroIndex, direction));
+            }
+        }
+
+        public GridState getFirstInOpen() {
+            return null;
+        }
+
+        public void addToOpen(GridState state) {
+        }
+
+        public boolean inOpenList(GridState state) {
+            return false;
+        }
+
+        public void removeFromOpen(GridState state) {
+        }
+
+        public void addToClosed(GridState state) {
+        }
+
+        public boolean inClosedList(GridState state) {
+            return false;
+        }
+
+        public void removeFromClosed(GridState state) {
+        }
+
+        public void printType() {
+            System.out.println("Move counter");
+        }
+    }
+}
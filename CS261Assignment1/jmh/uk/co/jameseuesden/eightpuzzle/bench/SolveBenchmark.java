@@ -0,0 +1,74 @@
+package uk.co.jameseuesden.eightpuzzle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.jameseuesden.eightpuzzle.FileHandler;
+import uk.co.jameseuesden.eightpuzzle.SolveResult;
+import uk.co.jameseuesden.eightpuzzle.Solver;
+
+/**
+ * <p>
+ * Whole solves of an easy, a medium and a hard puzzle from the testStart
+ * files, which must be in the working directory: easy is testStart3 (6
+ * moves), medium testStart5 (20 moves) and hard testStart4 (31 moves). Each
+ * solve has a Solver of its own, as it would in use, and no cache.
+ * </p>
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({ "easy", "medium", "hard" })
+    public String puzzle;
+
+    @Param({ "astar1", "astar2", "bfs", "dfs" })
+    public String mode;
+
+    private String start;
+    private String goal;
+
+    @Setup
+    public void setUp() {
+        String startFile;
+        String goalFile;
+        switch (puzzle) {
+        case "easy":
+            // testStart3 has a goal of its own.
+            startFile = "testStart3.txt";
+            goalFile = "testGoal3.txt";
+            break;
+        case "medium":
+            startFile = "testStart5.txt";
+            goalFile = "testGoal4.txt";
+            break;
+        default:
+            startFile = "testStart4.txt";
+            goalFile = "testGoal4.txt";
+        }
+        FileHandler fH = new FileHandler();
+        start = fH.readFile(fH.newFile(startFile));
+        goal = fH.readFile(fH.newFile(goalFile));
+        if (start == null || goal == null) {
+            throw new IllegalStateException("Could not read " + startFile
+                    + " and " + goalFile + " from the working directory");
+        }
+    }
+
+    @Benchmark
+    public SolveResult solve() {
+        return new Solver(start, goal, mode).solve();
+    }
+}
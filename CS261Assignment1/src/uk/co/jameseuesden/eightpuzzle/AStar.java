@@ -1,13 +1,11 @@
 package uk.co.jameseuesden.eightpuzzle;
 
-import java.util.LinkedList;
-import java.util.PriorityQueue;
-
 /**
  * <p>
- * Solve the 8 puzzle using A* Search, with different heuristics. Uses a
- * priority queue to ensure the least costing state is always at the front of
- * the frontier to be expanded upon.
+ * Solve the 8 puzzle using A* Search, with different heuristics. Uses an
+ * indexed priority queue to ensure the least costing state is always at the
+ * front of the frontier to be expanded upon, and that states already in the
+ * frontier can be found and have their cost lowered without a scan.
  * </p>
  * 
  * @author James Euesden - jee22
@@ -15,11 +13,13 @@ import java.util.PriorityQueue;
  */
 public class AStar extends GenericType {
     private GridState parent;
-    private PriorityQueue<GridState> open;
-    private LinkedList<GridState> closed;
-    private int expandedStates = 0;
+    private OpenList open;
+    private VisitedSet closed;
+    // The move that made each state, in place of links to parents.
+    private MoveLog moves;
     private Heuristic heuristic;
     private String modeWords;
+    private double weight = 1;
 
     /**
      * <p>
@@ -33,13 +33,41 @@ public class AStar extends GenericType {
     public AStar(GridState input, GridState goal, int mode) {
         parent = input;
         this.goal = goal;
-        open = new PriorityQueue<GridState>();
-        closed = new LinkedList<GridState>();
+        open = new OpenList();
+        closed = VisitedSet.forSize(goal.getSize());
+        moves = new MoveLog();
         defineMode(mode);
     }
 
     /**
-     * <p>Sets the heuristic to either Manhattan or Tile based.
+     * <p>Set how states of the same f cost are ordered in the
+     * open list. By default the deepest, then the newest, is
+     * expanded first.</p>
+     * @param tieBreak
+     */
+    public void setTieBreak(OpenList.TieBreak tieBreak) {
+        open = new OpenList(tieBreak);
+        open.setWeight(weight);
+    }
+
+    /**
+     * <p>Set the weight w on the heuristic cost, ordering the open
+     * list by g + w.h. Above 1 the search heads for the goal more
+     * greedily and expands far fewer states, but the path found may
+     * be up to w times longer than the shortest.</p>
+     * @param weight at least 1, where 1 is plain A*
+     */
+    public void setWeight(double weight) {
+        open.setWeight(weight);
+        this.weight = weight;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * <p>Sets the heuristic to Manhattan, Tile or Pattern Database based.
      * Updates a String to be used in informing the user of
      * which heuristic is under use. <br />
      * Default is Manhattan Distance.
@@ -56,6 +84,10 @@ public class AStar extends GenericType {
             heuristic = new TileHeuristic();
             modeWords = "Tiles out of place";
             break;
+        case (3):
+            heuristic = new PatternDatabaseHeuristic();
+            modeWords = "Pattern Database";
+            break;
         default:
             heuristic = new ManhattanHeuristic();
             modeWords = "Manhattan Distance";
@@ -74,16 +106,21 @@ public class AStar extends GenericType {
      * the correct tile space in the GridState evaluated.
      * </p>
      */
-    public void findPath() {
-        boolean solutionFound = false;
+    public SolveResult findPath() {
+        startSearch();
 
         // Start at 0 cost and depth.
         parent.setCost(0);
         parent.setDepth(0);
+        // Every child's heuristic cost is worked out from this one.
+        parent.setHeuristicCost(heuristic.getHeuristicCost(parent, goal));
+        this.evaluated();
 
         // Ensure all lists are empty.
         open.clear();
         closed.clear();
+        moves.clear();
+        parent.setId(moves.add(MoveLog.ROOT, 0));
 
         // No parent node to the Start state.
         goal.setParent(null);
@@ -93,20 +130,15 @@ public class AStar extends GenericType {
 
         // While there are still GridStates to be searched..
         while (open.size() != 0) {
-            // Keep track of how many GridStates are expanded
-            
             // Get the first element of the PriorityQueue
             GridState current = getFirstInOpen();
 
             // If the state matches the goal state, stop
             if (current.equals(goal)) {
-                // print success
-                this.printSuccess(current, expandedStates);
-                System.out.println("Depth: " +current.getDepth());
-                solutionFound = true;
-                break;
+                // Only now are the states of the path made, from the moves.
+                return finishSearch(replay(parent,
+                        moves.movesTo(current.getId())));
             }
-            expandedStates++;
 
             /*
              * After this state has been evaluated against the goal state,
@@ -114,22 +146,21 @@ public class AStar extends GenericType {
              */
             this.removeFromOpen(current);
             this.addToClosed(current);
-            this.printGrid(current);
+            this.expand(current);
 
             /*
              * Search through possible steps (Up, left, right, down) of empty
              * tiles and find the current state's children to be explored next
              */
             this.findChildren(current);
-         
+            this.listSizes(open.size(), closed.size());
+            if (this.limitReached()) {
+                break;
+            }
         }
 
-        // If by the end of this while loop, no solution has been found, inform
-        // the user
-        if (!solutionFound) {
-            System.out.println("No GridStates left to explore");
-           
-        }
+        // By the end of this while loop, no solution has been found
+        return finishSearch(null);
     }
 
     /**
@@ -151,51 +182,54 @@ public class AStar extends GenericType {
         // First check that the movement would be valid
         if (rulesForMovement(zeroIndex, direction)) {
             // Create a new child based on the current state
-            GridState child = createChild(current.getElements(), zeroIndex,
-                    direction);
+            GridState child = createChild(current, zeroIndex, direction);
+            this.generated();
 
-            // Set cost of getting to the child state and parent
+            // Set cost of getting to the child state and its depth
             child.setCost(current.getCost() + 1);
-            child.setParent(current);
+            child.setDepth(current.getDepth() + 1);
+            int move = MoveLog.code(direction, goal.getSize().getCols());
             /*
-             * Set heuristic cost
+             * Set heuristic cost. Only one tile has moved, from where the
+             * blank now is into where it was, so the heuristic only needs
+             * the change in that tile's cost from the parent's.
              */
-            child.setHeuristicCost(heuristic.getHeuristicCost(child, goal));
+            child.setHeuristicCost(current.getHeuristicCost()
+                    + heuristic.getHeuristicDelta(current.getBoard(), zeroIndex
+                            + direction, zeroIndex, goal));
+            this.evaluated();
 
             /*
-             * If the child state is not in the open or closed list, we haven't
-             * explored it at all yet, so add to the open list.
+             * Look the child up once in the open list. If it is there, check
+             * to see if it's cost is better now than it was before, and if so
+             * lower the cost of the state already in the open list so the
+             * heap can move it forward.
              */
-            if (!inOpenList(child) && !inClosedList(child)) {
-                this.addToOpen(child);
-
-                /*
-                 * If it is in a list, find out which list
-                 */
+            GridState checker = open.get(child.getBoard());
+            if (checker != null) {
+                if (child.getCost() < checker.getCost()) {
+                    checker.setCost(child.getCost());
+                    checker.setDepth(child.getDepth());
+                    moves.set(checker.getId(), current.getId(), move);
+                    open.decreaseKey(checker);
+                    this.reopened();
+                } else {
+                    this.pruned();
+                }
             } else {
-                GridState checker = inList(child, open);
                 /*
-                 * If it is in the open list, check to see if it's cost is
-                 * better now than it was in the previous open list.
+                 * If the child state is not in the closed list either, we
+                 * haven't explored it at all yet, so add to the open list.
+                 * Every heuristic here is consistent, never dropping by more
+                 * than one a move, so a state is always closed by its
+                 * cheapest path and never needs re-opening. That means the
+                 * closed list only needs the boards, not their costs.
                  */
-                if (checker != null) {
-                    if (child.getCost() < checker.getCost()) {
-                        removeFromOpen(checker);
-                        addToOpen(child);
-                    } else {
-                        /*
-                         * Else check if it's in the closed list, and if it's
-                         * state was better, then we 'update' the closed list
-                         * with the new child.
-                         */
-                        checker = inList(child, closed);
-                        if (checker != null) {
-                            if (child.getCost() < checker.getCost()) {
-                                removeFromClosed(checker);
-                                addToClosed(child);
-                            }
-                        }
-                    }
+                if (!closed.contains(child.getBoard())) {
+                    child.setId(moves.add(current.getId(), move));
+                    this.addToOpen(child);
+                } else {
+                    this.pruned();
                 }
             }
         }
@@ -259,7 +293,7 @@ public class AStar extends GenericType {
      *            The GridState to add to the closed list
      */
     public void addToClosed(GridState state) {
-        closed.add(state);
+        closed.add(state.getBoard());
     }
 
     /**
@@ -272,7 +306,7 @@ public class AStar extends GenericType {
      * @return True if the GridState specified is in the closed list
      */
     public boolean inClosedList(GridState state) {
-        return closed.contains(state);
+        return closed.contains(state.getBoard());
     }
 
     /**
@@ -284,7 +318,7 @@ public class AStar extends GenericType {
      *            The GridState to remove from the closed list
      */
     public void removeFromClosed(GridState state) {
-        closed.remove(state);
+        closed.remove(state.getBoard());
     }
 
     /**
@@ -294,6 +328,20 @@ public class AStar extends GenericType {
      */
     @Override
     public void printType() {
-        System.out.println("A* Search - " + modeWords);
+        if (weight == 1) {
+            System.out.println("A* Search - " + modeWords);
+        } else {
+            System.out.println("Weighted A* Search (w = " + weight + ") - "
+                    + modeWords);
+        }
+    }
+
+    /**
+     * <p>With a weight above 1 the path may be longer than the
+     * shortest.</p>
+     */
+    @Override
+    public boolean isOptimal() {
+        return weight == 1;
     }
 }
@@ -0,0 +1,370 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Anytime Repairing A* (ARA*). A first path is found quickly by a weighted
+ * A* search with a large weight w on the heuristic cost, then w is lowered
+ * a step at a time and the search carries on from where it was, finding
+ * shorter paths, until w is 1 and the path is the shortest or the time
+ * limit runs out. Each path is at most w times longer than the shortest.
+ * </p>
+ * <p>
+ * Nothing is thrown away between steps. Every state keeps its cheapest cost
+ * found so far, and a state already expanded in this step that is reached
+ * again by a cheaper path is put aside, to be expanded in the next step,
+ * rather than expanded twice. Every better path found is passed to the
+ * listener as it is found.
+ * </p>
+ */
+public class AnytimeAStar extends GenericType {
+    public static final double DEFAULT_START_WEIGHT = 3;
+    public static final double DEFAULT_WEIGHT_STEP = 0.5;
+
+    private GridState parent;
+    private OpenList open;
+    // Every state reached so far, with its cheapest cost.
+    private StateTable seen;
+    // States expanded in this step.
+    private VisitedSet closed;
+    // States expanded in this step, then reached again by a cheaper path.
+    private List<GridState> inconsistent;
+    private VisitedSet inconsistentBoards;
+    private MoveLog moves;
+    private Heuristic heuristic;
+    private String modeWords;
+    private double startWeight = DEFAULT_START_WEIGHT;
+    private double weightStep = DEFAULT_WEIGHT_STEP;
+    // The goal state once it has been reached, with its cheapest cost.
+    private GridState reached;
+    private boolean optimal;
+
+    /**
+     * <p>
+     * New ARA* search sets the start and goal state, and which heuristic to
+     * use.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     * @param mode
+     *            1 for Manhattan Distance, 2 for Tiles out of place, 3 for
+     *            Pattern Database
+     */
+    public AnytimeAStar(GridState input, GridState goal, int mode) {
+        parent = input;
+        this.goal = goal;
+        open = new OpenList();
+        seen = new StateTable();
+        closed = VisitedSet.forSize(goal.getSize());
+        inconsistent = new ArrayList<GridState>();
+        inconsistentBoards = VisitedSet.forSize(goal.getSize());
+        moves = new MoveLog();
+        defineMode(mode);
+    }
+
+    /**
+     * <p>Sets the heuristic to Manhattan, Tile or Pattern Database based.
+     * Default is Manhattan Distance.
+     * </p>
+     * @param mode
+     */
+    private void defineMode(int mode) {
+        switch (mode) {
+        case (2):
+            heuristic = new TileHeuristic();
+            modeWords = "Tiles out of place";
+            break;
+        case (3):
+            heuristic = new PatternDatabaseHeuristic();
+            modeWords = "Pattern Database";
+            break;
+        default:
+            heuristic = new ManhattanHeuristic();
+            modeWords = "Manhattan Distance";
+        }
+    }
+
+    /**
+     * <p>
+     * Set the weight of the first search, and how much it is lowered by for
+     * each search after.
+     * </p>
+     *
+     * @param startWeight
+     *            weight of the first search, at least 1
+     * @param weightStep
+     *            how much the weight is lowered each time, more than 0
+     */
+    public void setWeights(double startWeight, double weightStep) {
+        if (startWeight < 1 || weightStep <= 0) {
+            throw new IllegalArgumentException("Weights must start at 1 or more and step down by more than 0");
+        }
+        this.startWeight = startWeight;
+        this.weightStep = weightStep;
+    }
+
+    /**
+     * <p>
+     * Finds a path quickly, then shorter paths, until the shortest is found
+     * or a limit is reached. The shortest path found is returned.
+     * </p>
+     */
+    public SolveResult findPath() {
+        startSearch();
+        open.clear();
+        seen.clear();
+        closed.clear();
+        inconsistent.clear();
+        inconsistentBoards.clear();
+        moves.clear();
+        reached = null;
+        optimal = false;
+
+        GridState start = new GridState(parent.getBoard(),
+                parent.getBlankIndex(), parent.getSize());
+        start.setCost(0);
+        start.setDepth(0);
+        start.setHeuristicCost(heuristic.getHeuristicCost(start, goal));
+        this.evaluated();
+        start.setId(moves.add(MoveLog.ROOT, 0));
+        seen.put(start);
+        if (start.equals(goal)) {
+            reached = start;
+        }
+
+        double weight = startWeight;
+        open.setWeight(weight);
+        open.add(start);
+        String best = null;
+        while (true) {
+            boolean finished = improvePath();
+            if (reached != null
+                    && (best == null || reached.getCost() < best.length())) {
+                best = moves.movesTo(reached.getId());
+                solutionFound(replay(parent, best), bound(weight));
+            }
+            if (!finished || reached == null) {
+                break;
+            }
+            if (weight <= 1 || bound(weight) <= 1) {
+                optimal = true;
+                break;
+            }
+            // Search again with a lower weight, from every state left over.
+            weight = Math.max(1, weight - weightStep);
+            for (GridState state : inconsistent) {
+                open.add(state);
+            }
+            inconsistent.clear();
+            inconsistentBoards.clear();
+            closed.clear();
+            open.setWeight(weight);
+        }
+        return finishSearch(best == null ? null : replay(parent, best));
+    }
+
+    /**
+     * <p>
+     * Expand states in order of g + w.h until none could lead to a cheaper
+     * path to the goal than the one already found.
+     * </p>
+     *
+     * @return False if a limit was reached first
+     */
+    private boolean improvePath() {
+        while (open.size() != 0) {
+            GridState current = open.peek();
+            if (reached != null && reached.getCost() <= open.getKey(current)) {
+                return true;
+            }
+            open.poll();
+            closed.add(current.getBoard());
+            this.expand(current);
+            this.findChildren(current);
+            this.listSizes(open.size(), seen.size() - open.size());
+            if (this.limitReached()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * How many times longer than the shortest the path to the goal can be:
+     * no more than the weight, and no more than its cost over the lowest f
+     * of any state that might still lead to a shorter one.
+     * </p>
+     */
+    private double bound(double weight) {
+        int lowest = open.getMinCost();
+        for (GridState state : inconsistent) {
+            lowest = Math.min(lowest,
+                    state.getCost() + state.getHeuristicCost());
+        }
+        if (lowest == Integer.MAX_VALUE || lowest >= reached.getCost()) {
+            return 1;
+        }
+        return Math.min(weight, (double) reached.getCost() / lowest);
+    }
+
+    /**
+     * <p>
+     * Make a child state and keep it if it is new or cheaper than before.
+     * A cheaper path to a state already expanded in this search is put
+     * aside for the next one.
+     * </p>
+     */
+    public void movement(int zeroIndex, int direction, GridState current) {
+        if (!rulesForMovement(zeroIndex, direction)) {
+            return;
+        }
+        long board = current.moveBlank(zeroIndex + direction);
+        int cost = current.getCost() + 1;
+        int move = MoveLog.code(direction, goal.getSize().getCols());
+        this.generated();
+        GridState known = seen.get(board);
+        if (known == null) {
+            GridState child = createChild(current, zeroIndex, direction);
+            child.setCost(cost);
+            child.setDepth(cost);
+            child.setHeuristicCost(current.getHeuristicCost()
+                    + heuristic.getHeuristicDelta(current.getBoard(), zeroIndex
+                            + direction, zeroIndex, goal));
+            this.evaluated();
+            child.setId(moves.add(current.getId(), move));
+            seen.put(child);
+            open.add(child);
+            if (child.equals(goal)) {
+                reached = child;
+            }
+        } else if (cost < known.getCost()) {
+            known.setCost(cost);
+            known.setDepth(cost);
+            moves.set(known.getId(), current.getId(), move);
+            this.reopened();
+            if (open.contains(known)) {
+                open.decreaseKey(known);
+            } else if (!closed.contains(board)) {
+                open.add(known);
+            } else if (inconsistentBoards.add(board)) {
+                inconsistent.add(known);
+            }
+        } else {
+            this.pruned();
+        }
+    }
+
+    /**
+     * <p>
+     * Get the state with the lowest g + w.h.
+     * </p>
+     *
+     * @return The first element in the open list
+     */
+    public GridState getFirstInOpen() {
+        return open.peek();
+    }
+
+    /**
+     * <p>
+     * Add a GridState to the open list, ordered by g + w.h for the current
+     * weight.
+     * </p>
+     *
+     * @param state
+     *            The GridState to be added to the open list
+     */
+    public void addToOpen(GridState state) {
+        open.add(state);
+    }
+
+    /**
+     * <p>
+     * Check if a GridState is in the open list
+     * </p>
+     *
+     * @param state
+     *            The GridState to check for
+     * @return True if the GridState given is in the open list
+     */
+    public boolean inOpenList(GridState state) {
+        return open.contains(state);
+    }
+
+    /**
+     * <p>
+     * Remove a GridState from the open list
+     * </p>
+     *
+     * @param state
+     *            The GridState to remove from the open list
+     */
+    public void removeFromOpen(GridState state) {
+        open.remove(state);
+    }
+
+    /**
+     * <p>
+     * Add a GridState to the closed list, the states expanded in this
+     * search, which is emptied each time the weight is lowered.
+     * </p>
+     *
+     * @param state
+     *            The GridState to add to the closed list
+     */
+    public void addToClosed(GridState state) {
+        closed.add(state.getBoard());
+    }
+
+    /**
+     * <p>
+     * Check if the GridState has been expanded in this search
+     * </p>
+     *
+     * @param state
+     *            The GridState to search for
+     * @return True if the GridState specified is in the closed list
+     */
+    public boolean inClosedList(GridState state) {
+        return closed.contains(state.getBoard());
+    }
+
+    /**
+     * <p>
+     * Remove a GridState from the closed list.
+     * </p>
+     *
+     * @param state
+     *            The GridState to remove from the closed list
+     */
+    public void removeFromClosed(GridState state) {
+        closed.remove(state.getBoard());
+    }
+
+    /**
+     * <p>
+     * The path is only known to be the shortest if the last search carried
+     * on until nothing could lead to a shorter one, rather than running out
+     * of time first.
+     * </p>
+     */
+    @Override
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * <p>Inform user of Search method</p>
+     */
+    @Override
+    public void printType() {
+        System.out.println("ARA* Search (w = " + startWeight + " down by "
+                + weightStep + ") - " + modeWords);
+    }
+}
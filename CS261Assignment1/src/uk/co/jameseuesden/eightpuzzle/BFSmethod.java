@@ -1,7 +1,5 @@
 package uk.co.jameseuesden.eightpuzzle;
 
-import java.util.LinkedList;
-
 /**
  * <p>Breath First Search method, solving
  * the 8 Puzzle by searching all top level
@@ -11,17 +9,24 @@ import java.util.LinkedList;
  *
  */
 public class BFSmethod extends GenericType {
+    // Room the queue starts with, it grows as the search needs.
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
     private GridState parent;
-    private LinkedList<GridState> open;
-    private LinkedList<GridState> closed;
-    private int expandedStates = 0;
+    // Made by the first search, so a Solver that never searches makes none.
+    private BoardQueue open;
+    // Every board queued so far, whether still open or already closed.
+    private VisitedSet reached;
+    // The move that made each state, in place of links to parents.
+    private MoveLog moves;
 
     /**
      * <p>New BFS creates new lists, sets the start and goal
-     * state and adds the parent to the closed list. BFS uses
-     * a List (Or a Queue), where the first in is the first
-     * out, ensuring that it is always the top most level
-     * unexplored node explored next.
+     * state and makes the set of boards reached. BFS uses
+     * a Queue, where the first in is the first out, ensuring
+     * that it is always the top most level unexplored node
+     * explored next. The queue holds packed boards rather than
+     * GridStates, and is only made once a search starts.
      * </p>
      * @param input
      * @param goal
@@ -29,9 +34,8 @@ public class BFSmethod extends GenericType {
     public BFSmethod(GridState input, GridState goal) {
         parent = input;
         this.goal = goal;
-        open = new LinkedList<GridState>();
-        closed = new LinkedList<GridState>();
-        closed.add(parent);
+        reached = VisitedSet.forSize(goal.getSize());
+        moves = new MoveLog();
     }
 
     /**
@@ -39,43 +43,59 @@ public class BFSmethod extends GenericType {
      * state.
      * </p>
      */
-    public void findPath() {
-        boolean solutionFound = false;
+    public SolveResult findPath() {
+        startSearch();
+        makeOpen();
         open.clear();
-        closed.clear();
+        reached.clear();
+        moves.clear();
+        parent.setId(moves.add(MoveLog.ROOT, 0));
+        parent.setDepth(0);
         // Add the starting GridState to the open list to expand.
-        open.add(parent);
+        this.addToOpen(parent);
 
-        // While there are still GridStates to be searched
-        while (open.size() != 0) {
+        long goalBoard = goal.getBoard();
+        // While there are still boards to be searched
+        while (!open.isEmpty()) {
            
-            // Get the head of the frontier list.
-            GridState current = getFirstInOpen();
-
-            // If the state matches the goal state, stop
-            if (current.equals(goal)) {
-                this.printSuccess(current, expandedStates);
-                System.out.println("Depth: " +current.getDepth());
-                solutionFound = true;
-                break;
+            // Get the head of the frontier queue.
+            long board = open.peekBoard();
+            int zeroIndex = open.peekBlankIndex();
+            int depth = open.peekDepth();
+            int id = open.peekId();
+
+            // If the board matches the goal state, stop
+            if (board == goalBoard) {
+                // Only now are the states of the path made, from the moves.
+                return finishSearch(replay(parent, moves.movesTo(id)));
             }
-            // Keep track of how many GridStates expanded
-            expandedStates++;
             /*
-             * Once this state has been explored, remove it
-             * from the open list, add it to the closed list
-             * and then find it's children (successors) to expand later.
+             * Once this board has been explored, remove it from the
+             * open queue, it is already in the set of boards reached,
+             * and then queue its children (successors) to expand later.
              */
-            this.removeFromOpen(current);
-            this.addToClosed(current);
-            this.printGrid(current);
-            this.findChildren(current);
-        }
-
-        if (!solutionFound) {
-            System.out.println("No GridStates left to explore");
+            open.remove();
+            // Only make a GridState to report if anything is listening.
+            if (getListener() != null) {
+                GridState state = new GridState(board, zeroIndex,
+                        goal.getSize());
+                state.setDepth(depth);
+                state.setId(id);
+                this.expand(state);
+            } else {
+                this.expanded(depth);
+            }
+            for (int target : goal.getSize().getNeighbours(zeroIndex)) {
+                this.addChild(board, zeroIndex, target, depth, id);
+            }
+            // Reached holds the open states too.
+            this.listSizes(open.size(), reached.size() - open.size());
+            if (this.limitReached()) {
+                break;
+            }
         }
 
+        return finishSearch(null);
     }
 
     /**
@@ -86,15 +106,40 @@ public class BFSmethod extends GenericType {
     public void movement(int zeroIndex, int direction, GridState current) {
         // If the movement is legal
         if (rulesForMovement(zeroIndex, direction)) {
-            // Make a new child state
-            GridState child = createChild(current.getElements(), zeroIndex,
-                    direction);
-            // If this state does not already belong to the closed and open states
-            if (!inOpenList(child) && !inClosedList(child)) {
-                // Set it's parent and add to the open list.
-                child.setParent(current);
-                this.addToOpen(child);
-            }
+            this.addChild(current.getBoard(), zeroIndex, zeroIndex + direction,
+                    current.getDepth(), current.getId());
+        }
+    }
+
+    /**
+     * <p>Make the child board with the blank moved to the target, and
+     * queue it if it has not been reached before.
+     * </p>
+     */
+    private void addChild(long board, int zeroIndex, int target, int depth,
+            int id) {
+        long child = GridState.moveBlank(board, zeroIndex, target);
+        this.generated();
+        /*
+         * If this board does not already belong to the closed and open
+         * states, which are both in the set of boards reached
+         */
+        if (reached.add(child)) {
+            // Log the move that made it and add to the open queue.
+            open.add(child, target, depth + 1, moves.add(id,
+                    MoveLog.code(target - zeroIndex, goal.getSize().getCols())));
+        } else {
+            this.pruned();
+        }
+    }
+
+    /**
+     * <p>Make the open queue the first time it is needed.
+     * </p>
+     */
+    private void makeOpen() {
+        if (open == null) {
+            open = new BoardQueue(INITIAL_CAPACITY);
         }
     }
 
@@ -103,10 +148,17 @@ public class BFSmethod extends GenericType {
      * Get the first element from the open list. This is the next one to be
      * searched.
      * </p>
-     * @return The first element in the open list
+     * @return The first element in the open list, or null if it is empty
      */
     public GridState getFirstInOpen() {
-        return open.get(0);
+        if (open == null || open.isEmpty()) {
+            return null;
+        }
+        GridState state = new GridState(open.peekBoard(),
+                open.peekBlankIndex(), goal.getSize());
+        state.setDepth(open.peekDepth());
+        state.setId(open.peekId());
+        return state;
     }
 
     /**
@@ -117,19 +169,23 @@ public class BFSmethod extends GenericType {
      *            The GridState to be added to the open list
      */
     public void addToOpen(GridState state) {
-        open.add(state);
+        makeOpen();
+        open.add(state.getBoard(), state.getBlankIndex(), state.getDepth(),
+                state.getId());
+        reached.add(state.getBoard());
     }
 
     /**
      * <p>
-     * Check if a node is in the open list
+     * Check if a node is in the open list. Only the boards
+     * reached are kept in a set, so this has to scan the queue.
      * </p>
      * @param state
      *            The GridState to check for
      * @return True if the GridState given is in the open list
      */
     public boolean inOpenList(GridState state) {
-        return (open.contains(state));
+        return open != null && open.contains(state.getBoard());
     }
 
     /**
@@ -140,7 +196,9 @@ public class BFSmethod extends GenericType {
      *            The GridState to remove from the open list
      */
     public void removeFromOpen(GridState state) {
-        open.remove(state);
+        if (open != null) {
+            open.remove(state.getBoard());
+        }
     }
 
     /**
@@ -151,19 +209,21 @@ public class BFSmethod extends GenericType {
      *            The GridState to add to the closed list
      */
     public void addToClosed(GridState state) {
-        closed.add(state);
+        reached.add(state.getBoard());
     }
 
     /**
      * <p>
-     * Check if the GridState is in the closed list
+     * Check if the GridState is in the closed list. A state is
+     * never queued twice in BFS, so the states still waiting in
+     * the open list count as closed too.
      * </p>
      * @param node
      *            The GridState to search for
-     * @return True if the GridState specified is in the closed list
+     * @return True if the GridState specified has been reached
      */
     public boolean inClosedList(GridState state) {
-        return closed.contains(state);
+        return reached.contains(state.getBoard());
     }
 
     /**
@@ -174,7 +234,7 @@ public class BFSmethod extends GenericType {
      *            The GridState to remove from the closed list
      */
     public void removeFromClosed(GridState state) {
-        closed.remove(state);
+        reached.remove(state.getBoard());
     }
 
     /**
@@ -0,0 +1,264 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Solves a whole file of puzzles in one go, spread over a pool of worker
+ * threads. Each puzzle gets its own Solver, and so its own search with its
+ * own lists, so the workers share nothing but the tables of the goal.
+ * </p>
+ * <p>
+ * Every non-blank line of the puzzle file is one start state, its tiles
+ * separated by commas in order along the rows, such as 1,2,0,3,4,5,6,7,8.
+ * A line may give its own goal after a semicolon, otherwise the goal file's
+ * goal is used. Lines starting with # are skipped. The grid's rows and
+ * columns are those of the goal file.
+ * </p>
+ * <p>
+ * Results are written a line each, in the same order as the puzzles:
+ * </p>
+ * <pre>
+ * line,status,depth,moves,expanded,generated,peakFrontier,elapsedNanos
+ * </pre>
+ * <p>
+ * Only a limited number of puzzles are in flight at once, so the file can
+ * be any length without all of it being held in memory. The workers share
+ * a SolutionCache, so a puzzle repeated in the file, or one along the path
+ * of a puzzle already solved, is looked up rather than searched again.
+ * </p>
+ */
+public class BatchSolver {
+    // How many puzzles each worker may have waiting to be written out.
+    private static final int IN_FLIGHT_PER_THREAD = 64;
+
+    private String mode;
+    private int threads;
+    private FileHandler fH;
+    private SolutionCache cache;
+    private SearchLimits limits;
+
+    /**
+     * <p>
+     * New batch solver, solving with the given mode on the given number of
+     * worker threads.
+     * </p>
+     *
+     * @param mode
+     *            the search mode, as given to Solver
+     * @param threads
+     *            number of worker threads
+     */
+    public BatchSolver(String mode, int threads) {
+        this.mode = mode;
+        this.threads = Math.max(1, threads);
+        fH = new FileHandler();
+        cache = SolutionCache.fromProperties();
+        limits = SearchLimits.fromProperties();
+    }
+
+    /**
+     * <p>
+     * Set the cache shared by every puzzle, or null to search for every
+     * one.
+     * </p>
+     *
+     * @param cache
+     */
+    public void setCache(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * <p>
+     * Set the limits each puzzle is searched within, shared by every
+     * puzzle, so cancelling them stops the whole batch. Puzzles stopped by
+     * a limit are written with its status.
+     * </p>
+     *
+     * @param limits
+     */
+    public void setLimits(SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    public SearchLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * <p>
+     * Set how long each puzzle may be searched for, or 0 for no limit.
+     * </p>
+     *
+     * @param millis
+     *            time limit in milliseconds
+     */
+    public void setTimeLimit(long millis) {
+        limits.setTimeLimit(millis);
+    }
+
+    /**
+     * <p>
+     * Solve every puzzle in a file, writing the results to another.
+     * </p>
+     *
+     * @param puzzles
+     *            file of start states, one per line
+     * @param goalFile
+     *            file of the goal state, as read by FileHandler
+     * @param output
+     *            file the results are written to
+     * @return number of puzzles solved
+     * @throws IOException
+     *             if the files could not be read or written
+     */
+    public int solveFile(File puzzles, File goalFile, File output)
+            throws IOException {
+        String goal = fH.readFile(goalFile);
+        if (goal == null) {
+            throw new IOException("Could not read goal file " + goalFile);
+        }
+        int rows = fH.getRows();
+        int cols = fH.getCols();
+
+        BufferedReader in = new BufferedReader(new FileReader(puzzles));
+        BufferedWriter out = new BufferedWriter(new FileWriter(output));
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+        int count = 0;
+        try {
+            out.write("line,status,depth,moves,expanded,generated,peakFrontier,elapsedNanos");
+            out.newLine();
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                Callable<String> task = new PuzzleTask(lineNumber, line,
+                        goal, rows, cols);
+                if (count == 0) {
+                    /*
+                     * The first puzzle is solved before the pool starts, so
+                     * any tables for the goal are made once rather than by
+                     * every worker at the same time.
+                     */
+                    out.write(call(task));
+                    out.newLine();
+                } else {
+                    // Wait for the oldest puzzle before taking on too many.
+                    if (pending.size() >= threads * IN_FLIGHT_PER_THREAD) {
+                        writeResult(pending.removeFirst(), out);
+                    }
+                    pending.addLast(pool.submit(task));
+                }
+                count++;
+            }
+            while (!pending.isEmpty()) {
+                writeResult(pending.removeFirst(), out);
+            }
+        } finally {
+            pool.shutdownNow();
+            in.close();
+            out.close();
+        }
+        return count;
+    }
+
+    /**
+     * <p>
+     * Wait for a puzzle to be solved and write its result.
+     * </p>
+     */
+    private void writeResult(Future<String> result, BufferedWriter out)
+            throws IOException {
+        try {
+            out.write(result.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Puzzle could not be solved", e.getCause());
+        }
+        out.newLine();
+    }
+
+    private String call(Callable<String> task) throws IOException {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw new IOException("Puzzle could not be solved", e);
+        }
+    }
+
+    /**
+     * <p>
+     * Solves one line of the puzzle file with a Solver of its own.
+     * </p>
+     */
+    private class PuzzleTask implements Callable<String> {
+        private int lineNumber;
+        private String line;
+        private String goal;
+        private int rows;
+        private int cols;
+
+        PuzzleTask(int lineNumber, String line, String goal, int rows,
+                int cols) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.goal = goal;
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        /**
+         * <p>
+         * Solve the puzzle, or report why the line could not be read
+         * without stopping the rest of the batch.
+         * </p>
+         */
+        public String call() {
+            try {
+                String[] parts = line.split(";");
+                String start = fH.readTiles(parts[0], rows, cols);
+                String lineGoal = parts.length > 1 ? fH.readTiles(parts[1],
+                        rows, cols) : goal;
+                Solver solver = new Solver(start, lineGoal, rows, cols, mode);
+                solver.setCache(cache);
+                solver.setLimits(limits);
+                SolveResult result = solver.solve();
+                return lineNumber + "," + result.getStatus() + ","
+                        + result.getDepth() + ","
+                        + (result.getMoves() == null ? "" : result.getMoves())
+                        + "," + result.getExpandedStates() + ","
+                        + result.getGeneratedStates() + ","
+                        + result.getPeakFrontier() + ","
+                        + result.getElapsedNanos();
+            } catch (IllegalArgumentException e) {
+                // Includes NumberFormatException, and tiles that are not
+                // each of 0 to rows * cols - 1 exactly once.
+                return lineNumber + ",ERROR,-1,,0,0,0,0";
+            }
+        }
+    }
+}
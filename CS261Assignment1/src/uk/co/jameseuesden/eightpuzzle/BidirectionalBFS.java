@@ -0,0 +1,286 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Bidirectional Breadth First Search, searching forwards from the start state
+ * and backwards from the goal state at the same time, a whole level at a
+ * time, always expanding whichever side has the smaller frontier. When a
+ * state reached from one side has already been reached from the other, the
+ * two halves of the path are joined there. Each side only has to search
+ * about half the depth, so far fewer states are expanded than by BFS alone.
+ * </p>
+ */
+public class BidirectionalBFS extends GenericType {
+    private GridState parent;
+
+    // States reached from each side, by board, linked back to their root.
+    private StateTable forward;
+    private StateTable backward;
+    private List<GridState> forwardLevel;
+    private List<GridState> backwardLevel;
+
+    // The side being expanded, and the level of children being built.
+    private StateTable seen;
+    private StateTable other;
+    private List<GridState> nextLevel;
+
+    // Best meeting found so far: the same state as reached from each side.
+    private GridState meetForward;
+    private GridState meetBackward;
+
+    /**
+     * <p>
+     * New bidirectional BFS sets the start and goal state and creates the
+     * tables of states reached from each side.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     */
+    public BidirectionalBFS(GridState input, GridState goal) {
+        parent = input;
+        this.goal = goal;
+        forward = new StateTable();
+        backward = new StateTable();
+        forwardLevel = new ArrayList<GridState>();
+        backwardLevel = new ArrayList<GridState>();
+    }
+
+    /**
+     * <p>
+     * Finds the path from the start state to the goal state, expanding a
+     * level from one side or the other until the sides meet.
+     * </p>
+     */
+    public SolveResult findPath() {
+        startSearch();
+        forward.clear();
+        backward.clear();
+        forwardLevel.clear();
+        backwardLevel.clear();
+        meetForward = null;
+        meetBackward = null;
+
+        // Both sides start from a root of depth 0.
+        GridState start = new GridState(parent.getBoard(),
+                parent.getBlankIndex(), parent.getSize());
+        start.setDepth(0);
+        GridState end = new GridState(goal.getBoard(), goal.getBlankIndex(),
+                goal.getSize());
+        end.setDepth(0);
+        forward.put(start);
+        backward.put(end);
+        forwardLevel.add(start);
+        backwardLevel.add(end);
+
+        if (start.equals(end)) {
+            meetForward = start;
+            meetBackward = end;
+        }
+
+        while (meetForward == null && !forwardLevel.isEmpty()
+                && !backwardLevel.isEmpty() && !this.isStopped()) {
+            // Grow whichever side has fewer states to expand.
+            if (forwardLevel.size() <= backwardLevel.size()) {
+                forwardLevel = expandLevel(forwardLevel, forward, backward);
+            } else {
+                backwardLevel = expandLevel(backwardLevel, backward, forward);
+            }
+            this.listSizes(forwardLevel.size() + backwardLevel.size(),
+                    forward.size() + backward.size());
+        }
+
+        return finishSearch(meetForward != null ? joinPath() : null);
+    }
+
+    /**
+     * <p>
+     * Expand every state of one side's frontier. Every meeting with the other
+     * side is checked while the whole level is expanded, so the shortest
+     * joined path is kept rather than the first.
+     * </p>
+     *
+     * @param level
+     *            the frontier of the side being expanded
+     * @param side
+     *            states reached from the side being expanded
+     * @param opposite
+     *            states reached from the other side
+     * @return the next frontier of the side
+     */
+    private List<GridState> expandLevel(List<GridState> level,
+            StateTable side, StateTable opposite) {
+        seen = side;
+        other = opposite;
+        nextLevel = new ArrayList<GridState>(level.size() * 2);
+        for (GridState current : level) {
+            this.expand(current);
+            this.findChildren(current);
+            if (this.limitReached()) {
+                break;
+            }
+        }
+        return nextLevel;
+    }
+
+    /**
+     * <p>
+     * Creates a new grid, based on the current grid and the 'direction' of
+     * the empty tile. If the other side has already reached the child, the
+     * two halves of the path meet there.
+     * </p>
+     */
+    public void movement(int zeroIndex, int direction, GridState current) {
+        if (rulesForMovement(zeroIndex, direction)) {
+            GridState child = createChild(current, zeroIndex, direction);
+            this.generated();
+            if (!inClosedList(child)) {
+                child.setParent(current);
+                this.addToOpen(child);
+                GridState match = inList(child, other);
+                if (match != null) {
+                    meet(child, match);
+                }
+            } else {
+                this.pruned();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Keep the meeting if its joined path is shorter than any found so far.
+     * </p>
+     */
+    private void meet(GridState child, GridState match) {
+        int length = child.getDepth() + match.getDepth();
+        if (meetForward == null
+                || length < meetForward.getDepth() + meetBackward.getDepth()) {
+            if (seen == forward) {
+                meetForward = child;
+                meetBackward = match;
+            } else {
+                meetForward = match;
+                meetBackward = child;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Join the two halves of the path: follow the backward side's parents
+     * from the meeting state to the goal, making each one a child of the
+     * forward path, so the goal ends up linked back to the start.
+     * </p>
+     *
+     * @return the goal state, linked back through its parents to the start
+     */
+    private GridState joinPath() {
+        GridState current = meetForward;
+        GridState towardsGoal = meetBackward.getParent();
+        while (towardsGoal != null) {
+            GridState child = new GridState(towardsGoal.getBoard(),
+                    towardsGoal.getBlankIndex(), towardsGoal.getSize());
+            child.setParent(current);
+            current = child;
+            towardsGoal = towardsGoal.getParent();
+        }
+        return current;
+    }
+
+    /**
+     * <p>
+     * Get the first state of the forward frontier.
+     * </p>
+     *
+     * @return The first element in the forward frontier
+     */
+    public GridState getFirstInOpen() {
+        return forwardLevel.isEmpty() ? null : forwardLevel.get(0);
+    }
+
+    /**
+     * <p>
+     * Add a GridState to the next level of the side being expanded, and to
+     * the states reached from that side.
+     * </p>
+     *
+     * @param state
+     *            The GridState to be added
+     */
+    public void addToOpen(GridState state) {
+        nextLevel.add(state);
+        seen.put(state);
+    }
+
+    /**
+     * <p>
+     * Check if a GridState has been reached from either side.
+     * </p>
+     *
+     * @param state
+     *            The GridState to check for
+     * @return True if either side has reached the GridState
+     */
+    public boolean inOpenList(GridState state) {
+        return forward.contains(state) || backward.contains(state);
+    }
+
+    /**
+     * <p>
+     * States are never taken back out of a frontier level.
+     * </p>
+     */
+    public void removeFromOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * Mark a GridState as reached from the side being expanded.
+     * </p>
+     *
+     * @param state
+     *            The GridState to add
+     */
+    public void addToClosed(GridState state) {
+        seen.put(state);
+    }
+
+    /**
+     * <p>
+     * Check if the side being expanded has already reached a GridState.
+     * </p>
+     *
+     * @param state
+     *            The GridState to search for
+     * @return True if the side being expanded has reached it
+     */
+    public boolean inClosedList(GridState state) {
+        return seen.contains(state);
+    }
+
+    /**
+     * <p>
+     * Forget that the side being expanded reached a GridState.
+     * </p>
+     *
+     * @param state
+     *            The GridState to remove
+     */
+    public void removeFromClosed(GridState state) {
+        seen.remove(state);
+    }
+
+    /**
+     * <p>Inform user of Search method</p>
+     */
+    @Override
+    public void printType() {
+        System.out.println("Bidirectional BFS Method");
+    }
+}
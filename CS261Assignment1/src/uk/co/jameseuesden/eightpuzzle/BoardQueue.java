@@ -0,0 +1,191 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * First in, first out queue of packed boards, for the open list of a breadth
+ * first search. Each board is kept with where its blank is, its depth and
+ * its MoveLog id, in arrays of primitives used as a ring, so a board queued
+ * costs no object at all and the queue is a few runs of memory rather than a
+ * chain of nodes.
+ * </p>
+ * <p>
+ * The queue grows by copying into arrays twice the size whenever it is full,
+ * so it can start small, and a search that needs a big one only copies
+ * about as many boards again as it ends up holding. It is not safe for more
+ * than one thread to use at once.
+ * </p>
+ */
+public class BoardQueue {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] boards;
+    // Depth shifted up 4 bits, with the blank index below.
+    private int[] places;
+    private int[] ids;
+    // Capacity is always a power of two, so this finds a place in the ring.
+    private int mask;
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * <p>
+     * New empty queue with room for at least the given number of boards.
+     * </p>
+     *
+     * @param capacity
+     *            how many boards are expected to be queued at once
+     */
+    public BoardQueue(int capacity) {
+        int wanted = Math.max(MIN_CAPACITY, Math.min(capacity, 1 << 30));
+        int length = Integer.highestOneBit(wanted - 1) << 1;
+        boards = new long[length];
+        places = new int[length];
+        ids = new int[length];
+        mask = length - 1;
+    }
+
+    /**
+     * <p>
+     * Add a board to the back of the queue.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @param blankIndex
+     *            index of its blank tile
+     * @param depth
+     *            moves from the start to the board
+     * @param id
+     *            MoveLog id of the move that made it
+     */
+    public void add(long board, int blankIndex, int depth, int id) {
+        if (size == boards.length) {
+            grow();
+        }
+        int at = (head + size) & mask;
+        boards[at] = board;
+        places[at] = (depth << 4) | blankIndex;
+        ids[at] = id;
+        size++;
+    }
+
+    /**
+     * <p>
+     * Take the board at the front of the queue out. Its details should be
+     * read with the peek methods first.
+     * </p>
+     */
+    public void remove() {
+        if (size == 0) {
+            throw new IllegalStateException("Queue is empty");
+        }
+        head = (head + 1) & mask;
+        size--;
+    }
+
+    /**
+     * <p>
+     * Take a board out from anywhere in the queue, moving the boards behind
+     * it up one. This is slow, and is not used by the search itself.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @return True if the board was queued
+     */
+    public boolean remove(long board) {
+        int i = indexOf(board);
+        if (i < 0) {
+            return false;
+        }
+        for (; i < size - 1; i++) {
+            int at = (head + i) & mask;
+            int after = (at + 1) & mask;
+            boards[at] = boards[after];
+            places[at] = places[after];
+            ids[at] = ids[after];
+        }
+        size--;
+        return true;
+    }
+
+    public long peekBoard() {
+        return boards[head];
+    }
+
+    public int peekBlankIndex() {
+        return places[head] & 0xF;
+    }
+
+    public int peekDepth() {
+        return places[head] >>> 4;
+    }
+
+    public int peekId() {
+        return ids[head];
+    }
+
+    /**
+     * <p>
+     * Check if a board is queued, by looking through the whole queue.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @return True if the board is queued
+     */
+    public boolean contains(long board) {
+        return indexOf(board) >= 0;
+    }
+
+    private int indexOf(long board) {
+        for (int i = 0; i < size; i++) {
+            if (boards[(head + i) & mask] == board) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * <p>
+     * Empty the queue, keeping its capacity.
+     * </p>
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * <p>
+     * Double the capacity, unwrapping the ring so the front is at index 0.
+     * </p>
+     */
+    private void grow() {
+        int length = boards.length;
+        int front = length - head;
+        long[] longerBoards = new long[length * 2];
+        System.arraycopy(boards, head, longerBoards, 0, front);
+        System.arraycopy(boards, 0, longerBoards, front, head);
+        int[] longerPlaces = new int[length * 2];
+        System.arraycopy(places, head, longerPlaces, 0, front);
+        System.arraycopy(places, 0, longerPlaces, front, head);
+        int[] longerIds = new int[length * 2];
+        System.arraycopy(ids, head, longerIds, 0, front);
+        System.arraycopy(ids, 0, longerIds, front, head);
+        boards = longerBoards;
+        places = longerPlaces;
+        ids = longerIds;
+        mask = length * 2 - 1;
+        head = 0;
+    }
+}
@@ -0,0 +1,133 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A visited set of packed boards for grids too large to give every board a
+ * bit, such as the 15 puzzle. Uses open addressing with linear probing over
+ * a single array of boards, like StateTable but with no GridStates. No
+ * board has every tile 0, so an empty slot holds 0.
+ * </p>
+ */
+public class BoardSet extends VisitedSet {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final long EMPTY = 0L;
+
+    private long[] boards;
+    private int mask;
+    private int size = 0;
+
+    /**
+     * <p>
+     * New empty set with a default capacity, grown as boards are added.
+     * </p>
+     */
+    public BoardSet() {
+        boards = new long[DEFAULT_CAPACITY];
+        mask = boards.length - 1;
+    }
+
+    public boolean add(long board) {
+        int slot = slotFor(board);
+        while (boards[slot] != EMPTY) {
+            if (boards[slot] == board) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        boards[slot] = board;
+        size++;
+        // Keep the load factor at or below a half so probe runs stay short.
+        if (size * 2 > boards.length) {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(long board) {
+        int slot = slotFor(board);
+        while (boards[slot] != EMPTY) {
+            if (boards[slot] == board) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Remove a board, shifting back later boards in the same probe run so
+     * no tombstones are left behind.
+     * </p>
+     */
+    public boolean remove(long board) {
+        int slot = slotFor(board);
+        while (boards[slot] != EMPTY) {
+            if (boards[slot] == board) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(boards, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * <p>
+     * Fill the gap left at the given slot by moving back any later board in
+     * the same run that would otherwise no longer be reachable.
+     * </p>
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (boards[slot] == EMPTY) {
+                break;
+            }
+            int home = slotFor(boards[slot]);
+            // Only move the board if the gap lies between its home and its slot.
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                boards[gap] = boards[slot];
+                gap = slot;
+            }
+        }
+        boards[gap] = EMPTY;
+    }
+
+    /**
+     * <p>
+     * Double the capacity of the set and re-insert every board.
+     * </p>
+     */
+    private void grow() {
+        long[] old = boards;
+        boards = new long[old.length * 2];
+        mask = boards.length - 1;
+        for (long board : old) {
+            if (board != EMPTY) {
+                int slot = slotFor(board);
+                while (boards[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                boards[slot] = board;
+            }
+        }
+    }
+
+    private int slotFor(long board) {
+        return StateTable.hash(board) & mask;
+    }
+}
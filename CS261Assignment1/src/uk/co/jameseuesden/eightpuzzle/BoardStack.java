@@ -0,0 +1,160 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Last in, first out stack of packed boards, for the open list of a depth
+ * first search. Each board is kept with where its blank is, its depth and
+ * its MoveLog id, in arrays of primitives, so a board pushed costs no object
+ * at all and there is no lock taken to push or pop it.
+ * </p>
+ * <p>
+ * The stack grows by copying into arrays twice the size whenever it is full,
+ * so it can start small, and a search that needs a big one only copies
+ * about as many boards again as it ends up holding. It is not safe for more
+ * than one thread to use at once.
+ * </p>
+ */
+public class BoardStack {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] boards;
+    // Depth shifted up 4 bits, with the blank index below.
+    private int[] places;
+    private int[] ids;
+    private int size = 0;
+
+    /**
+     * <p>
+     * New empty stack with room for the given number of boards.
+     * </p>
+     *
+     * @param capacity
+     *            how many boards are expected to be pushed at once
+     */
+    public BoardStack(int capacity) {
+        int length = Math.max(MIN_CAPACITY, capacity);
+        boards = new long[length];
+        places = new int[length];
+        ids = new int[length];
+    }
+
+    /**
+     * <p>
+     * Push a board onto the top of the stack.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @param blankIndex
+     *            index of its blank tile
+     * @param depth
+     *            moves from the start to the board
+     * @param id
+     *            MoveLog id of the move that made it
+     */
+    public void push(long board, int blankIndex, int depth, int id) {
+        if (size == boards.length) {
+            boards = Arrays.copyOf(boards, size * 2);
+            places = Arrays.copyOf(places, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        boards[size] = board;
+        places[size] = (depth << 4) | blankIndex;
+        ids[size] = id;
+        size++;
+    }
+
+    /**
+     * <p>
+     * Take the board on the top of the stack off. Its details should be read
+     * with the peek methods first.
+     * </p>
+     */
+    public void pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Stack is empty");
+        }
+        size--;
+    }
+
+    /**
+     * <p>
+     * Take a board out from anywhere in the stack, moving the boards above
+     * it down one. This is slow, and is not used by the search itself.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @return True if the board was on the stack
+     */
+    public boolean remove(long board) {
+        int i = indexOf(board);
+        if (i < 0) {
+            return false;
+        }
+        int above = size - i - 1;
+        System.arraycopy(boards, i + 1, boards, i, above);
+        System.arraycopy(places, i + 1, places, i, above);
+        System.arraycopy(ids, i + 1, ids, i, above);
+        size--;
+        return true;
+    }
+
+    public long peekBoard() {
+        return boards[size - 1];
+    }
+
+    public int peekBlankIndex() {
+        return places[size - 1] & 0xF;
+    }
+
+    public int peekDepth() {
+        return places[size - 1] >>> 4;
+    }
+
+    public int peekId() {
+        return ids[size - 1];
+    }
+
+    /**
+     * <p>
+     * Check if a board is on the stack, by looking through the whole stack.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @return True if the board is on the stack
+     */
+    public boolean contains(long board) {
+        return indexOf(board) >= 0;
+    }
+
+    // The topmost place of a board, as that is the one popped first.
+    private int indexOf(long board) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (boards[i] == board) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * <p>
+     * Empty the stack, keeping its capacity.
+     * </p>
+     */
+    public void clear() {
+        size = 0;
+    }
+}
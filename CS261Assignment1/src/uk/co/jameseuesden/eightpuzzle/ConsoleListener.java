@@ -0,0 +1,194 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * Prints a search to the console, as much of it as the TraceLevel asks
+ * for: the states expanded, then the goal state and its parent once it is
+ * found. Everything goes through a TraceWriter, so the search does not wait
+ * on the console while it prints.
+ * </p>
+ */
+public class ConsoleListener implements SearchListener {
+    private TraceLevel level;
+    private int every;
+    private TraceWriter out;
+    // States expanded so far in this search, to pick out every n-th.
+    private int seen = 0;
+
+    /**
+     * <p>New console listener printing every state expanded.</p>
+     */
+    public ConsoleListener() {
+        this(TraceLevel.FULL, 1);
+    }
+
+    /**
+     * <p>New console listener printing at the given trace level.</p>
+     * 
+     * @param level
+     *            how much of the search to print
+     * @param every
+     *            for EVERY_N, how many states are expanded between each
+     *            one printed
+     */
+    public ConsoleListener(TraceLevel level, int every) {
+        this.level = level;
+        this.every = Math.max(1, every);
+        out = new TraceWriter(System.out);
+    }
+
+    public TraceLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * <p>Prints the states expanded, if the trace level asks
+     * for them.</p>
+     */
+    public void stateExpanded(GridState state) {
+        seen++;
+        if (level == TraceLevel.FULL) {
+            printGrid(state);
+        } else if (level == TraceLevel.EVERY_N && seen % every == 0) {
+            out.println("Expanded " + seen + ":");
+            printGrid(state);
+        }
+    }
+
+    /**
+     * <p>Prints how long each better path found on the way is,
+     * unless the trace is off.</p>
+     */
+    public void solutionFound(SolveResult result, GridState found,
+            double bound) {
+        if (level != TraceLevel.OFF) {
+            out.println("Found " + result.getDepth() + " moves after "
+                    + result.getExpandedStates()
+                    + " expanded, at most "
+                    + String.format("%.2f", bound) + " times the fewest");
+        }
+    }
+
+    /**
+     * <p>Prints the goal state and how it was reached, or that
+     * there was no way to reach it.</p>
+     */
+    public void searchFinished(SolveResult result, GridState found) {
+        seen = 0;
+        if (level == TraceLevel.OFF) {
+            return;
+        }
+        if (result.isSolved()) {
+            printSuccess(found, result.getExpandedStates());
+            out.println("Grid States generated: " + result.getGeneratedStates());
+            out.println("Peak frontier: " + result.getPeakFrontier());
+            out.println("Depth: " + result.getDepth());
+            out.println("Moves: " + result.getMoves());
+        } else if (result.getStatus() == SolveResult.Status.UNSOLVABLE) {
+            out.println("Start state cannot reach the goal state");
+        } else if (result.isPartial() && result.getMoves() != null) {
+            out.println("Stopped by " + result.getStatus() + " after "
+                    + result.getExpandedStates()
+                    + " expanded, the path found may not be the shortest");
+            out.println("Depth: " + result.getDepth());
+            out.println("Moves: " + result.getMoves());
+        } else if (result.isPartial()) {
+            out.println("Stopped by " + result.getStatus() + " after "
+                    + result.getExpandedStates()
+                    + " expanded, before reaching the goal state");
+        } else {
+            out.println("No GridStates left to explore");
+        }
+        out.flush();
+    }
+
+    /**
+     * <p>Print a line through the same writer as the trace, so
+     * it comes out in order with it.</p>
+     * @param text the line to print
+     */
+    public void println(String text) {
+        if (level != TraceLevel.OFF) {
+            out.println(text);
+        }
+    }
+
+    /**
+     * <p>Wait until everything printed so far is on the console.</p>
+     */
+    public void flush() {
+        out.flush();
+    }
+
+    /**
+     * <p>Print everything left and stop the writer's thread.</p>
+     */
+    public void close() {
+        out.close();
+    }
+
+    //------------- PRINT METHODS --------------
+    
+    /**
+     * Prints the grid requested to the console.
+     * 
+     * @param gridInput
+     *            - Any GridState to be printed.
+     */
+ 
+    public void printGrid(GridState gridInput) {
+        out.print(formatGrid(gridInput));
+    }
+
+    /**
+     * <p>Lay out a grid as text, a row per line, ready to
+     * be printed in one go.</p>
+     * 
+     * @param gridInput
+     *            - Any GridState to be laid out.
+     * @return the grid as text
+     */
+    public static String formatGrid(GridState gridInput) {
+        int cols = gridInput.getSize().getCols();
+        // Tiles of two digits need every tile padded to keep columns lined up.
+        boolean wide = gridInput.getLength() > 10;
+        StringBuilder text = new StringBuilder();
+        text.append("-----").append(System.lineSeparator());
+        for (int i = 0; i < gridInput.getLength(); i++) {
+            int tile = gridInput.getTile(i);
+            if (tile == 0) {
+                text.append(wide ? "   " : "  ");
+            } else if (wide && tile < 10) {
+                text.append(' ').append(tile).append(' ');
+            } else {
+                text.append(tile).append(' ');
+            }
+            if (((i + 1) % cols) == 0) {
+                text.append(System.lineSeparator());
+            }
+        }
+        return text.toString();
+    }
+    
+    /**
+     * <p>Prints the success of the application
+     * in finding the goal state, including how
+     * many GridStates were expanded and the parent
+     * of the grid state.
+     * </p>
+     * @param current grid state to be used
+     */
+    public void printSuccess(GridState current, int expandedStates){
+        out.println("------");
+        out.println("Found goal state match!");
+        this.printGrid(current);
+        
+        out.println("------");
+        out.println("Parent to Goal:");
+        // In case the start state and goal state are the same on the first run.
+        if(current.getParent() != null){
+            this.printGrid(current.getParent());
+        }
+        out.println("Grid States expanded: " + expandedStates);
+    }
+}
@@ -1,8 +1,5 @@
 package uk.co.jameseuesden.eightpuzzle;
 
-import java.util.LinkedList;
-import java.util.Stack;
-
 /**
  * <p>
  * Implementation of Depth First Search (DFS), searching through the state space
@@ -14,16 +11,22 @@ import java.util.Stack;
  * 
  */
 public class DFSmethod extends GenericType {
+    // Room the stack starts with, it grows as the search needs.
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
     private GridState parent;
-    private Stack<GridState> open;
-    private LinkedList<GridState> closed;
-    private int expandedStates = 0;
+    // Made by the first search, so a Solver that never searches makes none.
+    private BoardStack open;
+    private VisitedSet closed;
+    // The move that made each state, in place of links to parents.
+    private MoveLog moves;
 
     /**
      * <p>
      * New DFS sets the start state, goal state and creates new lists. DFS uses
      * a Stack, as the last state in the stack (the deepest state) should be
-     * explored first.
+     * explored first. The stack holds packed boards rather than GridStates,
+     * and is only made once a search starts.
      * </p>
      * 
      * @param input
@@ -34,9 +37,8 @@ public class DFSmethod extends GenericType {
     public DFSmethod(GridState input, GridState goal) {
         parent = input;
         this.goal = goal;
-        open = new Stack<GridState>();
-        closed = new LinkedList<GridState>();
-        closed.add(parent);
+        closed = VisitedSet.forSize(goal.getSize());
+        moves = new MoveLog();
     }
 
     /**
@@ -44,42 +46,59 @@ public class DFSmethod extends GenericType {
      * Finds the path from the start state to the goal state.
      * </p>
      */
-    public void findPath() {
-        boolean solutionFound = false;
+    public SolveResult findPath() {
+        startSearch();
+        makeOpen();
         open.clear();
         closed.clear();
+        moves.clear();
+        parent.setId(moves.add(MoveLog.ROOT, 0));
+        parent.setDepth(0);
         // Add the starting GridState to the open list to expand.
         this.addToOpen(parent);
 
-        // While there are still GridStates to be searched
-        while (open.size() != 0) {
+        long goalBoard = goal.getBoard();
+        // While there are still boards to be searched
+        while (!open.isEmpty()) {
             
-            // Get the first element of the Stack (pop it)
-            GridState current = getFirstInOpen();
-
-            // If the state matches the goal state, stop
-            if (current.equals(goal)) {
-                this.printSuccess(current, expandedStates);
-                System.out.println("Depth: " +current.getDepth());
-                solutionFound = true;
-                break;
+            // Get the top of the Stack (pop it)
+            long board = open.peekBoard();
+            int zeroIndex = open.peekBlankIndex();
+            int depth = open.peekDepth();
+            int id = open.peekId();
+            open.pop();
+
+            // If the board matches the goal state, stop
+            if (board == goalBoard) {
+                // Only now are the states of the path made, from the moves.
+                return finishSearch(replay(parent, moves.movesTo(id)));
             }
-         // Keep track of how many GridStates expanded
-            expandedStates++;
 
-            // Add state to the closed list
-            this.addToClosed(current);
-            this.printGrid(current);
+            // Add board to the closed list
+            closed.add(board);
+            // Only make a GridState to report if anything is listening.
+            if (getListener() != null) {
+                GridState state = new GridState(board, zeroIndex,
+                        goal.getSize());
+                state.setDepth(depth);
+                state.setId(id);
+                this.expand(state);
+            } else {
+                this.expanded(depth);
+            }
 
             // Search through possible steps (Up, left, right, down) of empty
             // tile
-            this.findChildren(current);
-        }
-
-        if (!solutionFound) {
-            System.out.println("No GridStates left to explore");
+            for (int target : goal.getSize().getNeighbours(zeroIndex)) {
+                this.addChild(board, zeroIndex, target, depth, id);
+            }
+            this.listSizes(open.size(), closed.size());
+            if (this.limitReached()) {
+                break;
+            }
         }
 
+        return finishSearch(null);
     }
 
     /**
@@ -91,17 +110,39 @@ public class DFSmethod extends GenericType {
     public void movement(int zeroIndex, int direction, GridState current) {
         // If the movement is legal
         if (rulesForMovement(zeroIndex, direction)) {
-            /*
-             * Make a new grid state, based on the current state and the
-             * direction of the empty tile
-             */
-            GridState child = createChild(current.getElements(), zeroIndex,
-                    direction);
-            // If the state is not in the closed list already, add it to open list
-            if (!inClosedList(child)) {
-                child.setParent(current);
-                this.addToOpen(child);
-            }
+            this.addChild(current.getBoard(), zeroIndex, zeroIndex + direction,
+                    current.getDepth(), current.getId());
+        }
+    }
+
+    /**
+     * <p>
+     * Make the child board with the blank moved to the target, and push it
+     * if it is not in the closed list already.
+     * </p>
+     */
+    private void addChild(long board, int zeroIndex, int target, int depth,
+            int id) {
+        long child = GridState.moveBlank(board, zeroIndex, target);
+        this.generated();
+        // If the board is not in the closed list already, add it to open list
+        if (!closed.contains(child)) {
+            // Log the move that made it, in place of a link to its parent.
+            open.push(child, target, depth + 1, moves.add(id,
+                    MoveLog.code(target - zeroIndex, goal.getSize().getCols())));
+        } else {
+            this.pruned();
+        }
+    }
+
+    /**
+     * <p>
+     * Make the open stack the first time it is needed.
+     * </p>
+     */
+    private void makeOpen() {
+        if (open == null) {
+            open = new BoardStack(INITIAL_CAPACITY);
         }
     }
 
@@ -109,10 +150,17 @@ public class DFSmethod extends GenericType {
      * <p>Get the first element from the open list. This is the next one to be
      * searched.
      * </p>
-     * @return The first element in the open list
+     * @return The first element in the open list, or null if it is empty
      */
     public GridState getFirstInOpen() {
-        return open.pop();
+        if (open == null || open.isEmpty()) {
+            return null;
+        }
+        GridState state = new GridState(open.peekBoard(),
+                open.peekBlankIndex(), goal.getSize());
+        state.setDepth(open.peekDepth());
+        state.setId(open.peekId());
+        return state;
     }
 
     /**
@@ -123,7 +171,9 @@ public class DFSmethod extends GenericType {
      *            The GridState to be added to the open list
      */
     public void addToOpen(GridState state) {
-        open.push(state);
+        makeOpen();
+        open.push(state.getBoard(), state.getBlankIndex(), state.getDepth(),
+                state.getId());
     }
 
     /**
@@ -135,7 +185,7 @@ public class DFSmethod extends GenericType {
      * @return True if the GridState given is in the open list
      */
     public boolean inOpenList(GridState state) {
-        return open.contains(state);
+        return open != null && open.contains(state.getBoard());
     }
 
     /**
@@ -146,7 +196,9 @@ public class DFSmethod extends GenericType {
      *            The GridState to remove from the open list
      */
     public void removeFromOpen(GridState state) {
-        open.remove(state);
+        if (open != null) {
+            open.remove(state.getBoard());
+        }
     }
 
     /**
@@ -157,7 +209,7 @@ public class DFSmethod extends GenericType {
      *            The GridState to add to the closed list
      */
     public void addToClosed(GridState state) {
-        closed.add(state);
+        closed.add(state.getBoard());
     }
 
     /**
@@ -169,7 +221,7 @@ public class DFSmethod extends GenericType {
      * @return True if the GridState specified is in the closed list
      */
     public boolean inClosedList(GridState state) {
-        return closed.contains(state);
+        return closed.contains(state.getBoard());
     }
 
     /**
@@ -180,7 +232,16 @@ public class DFSmethod extends GenericType {
      *            The GridState to remove from the closed list
      */
     public void removeFromClosed(GridState state) {
-        closed.remove(state);
+        closed.remove(state.getBoard());
+    }
+
+    /**
+     * <p>DFS returns the first path it finds, which is rarely
+     * the shortest.</p>
+     */
+    @Override
+    public boolean isOptimal() {
+        return false;
     }
 
     /**
@@ -0,0 +1,244 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * The exact number of moves from every board to one goal, indexed by the
+ * board's PermutationRank. Made once by a breadth first search out from the
+ * goal and saved to a file, after which any start state can be solved by
+ * looking up its neighbours' distances and always stepping to one that is a
+ * move closer.
+ * </p>
+ * <p>
+ * The table is one byte per permutation of the tiles, so it is only made
+ * for grids of up to 10 cells. Boards that cannot reach the goal are left
+ * as {@link #UNREACHABLE}.
+ * </p>
+ */
+public class DistanceTable {
+    public static final int UNREACHABLE = 0xFF;
+    public static final int MAX_CELLS = 10;
+
+    private static final int MAGIC = 0x44495354; // "DIST"
+
+    /*
+     * Tables already made or loaded, shared by every solve. They are kept by
+     * file name, which names the grid as well as the goal board, as a 2x3
+     * and a 3x2 goal with the same tiles pack to the same board.
+     */
+    private static final Map<String, DistanceTable> TABLES = new HashMap<String, DistanceTable>();
+
+    private GridSize size;
+    private long goalBoard;
+    private byte[] distances;
+
+    /**
+     * <p>
+     * New, empty distance table for the given goal.
+     * </p>
+     *
+     * @param goal
+     *            the goal state
+     */
+    public DistanceTable(GridState goal) {
+        size = goal.getSize();
+        if (size.getCells() > MAX_CELLS) {
+            throw new IllegalArgumentException("No distance table for a "
+                    + size + " grid");
+        }
+        goalBoard = goal.getBoard();
+    }
+
+    /**
+     * <p>
+     * Get the distance table for the given goal, loading it from the given
+     * directory or making and saving it there the first time it is needed.
+     * Once in memory it is kept for every later solve to the same goal.
+     * </p>
+     *
+     * @param goal
+     *            the goal state
+     * @param directory
+     *            where the tables are saved to and loaded from
+     * @return the distance table for the goal
+     */
+    public static synchronized DistanceTable forGoal(GridState goal,
+            File directory) {
+        DistanceTable table = new DistanceTable(goal);
+        String name = table.getFileName();
+        if (TABLES.containsKey(name)) {
+            return TABLES.get(name);
+        }
+        File file = new File(directory, name);
+        boolean loaded = false;
+        try {
+            loaded = table.load(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (!loaded) {
+            table.generate();
+            try {
+                table.save(file);
+            } catch (IOException e) {
+                // The table can still be used, it just has to be made again.
+                e.printStackTrace();
+            }
+        }
+        TABLES.put(name, table);
+        return table;
+    }
+
+    /**
+     * <p>
+     * The directory distance tables and pattern databases are kept in when
+     * none is given, named by -Deightpuzzle.tables, or "pdb" if it is not
+     * set.
+     * </p>
+     *
+     * @return the directory for tables
+     */
+    public static File defaultDirectory() {
+        return new File(System.getProperty("eightpuzzle.tables", "pdb"));
+    }
+
+    /**
+     * <p>
+     * Look up the number of moves from the given board to the goal.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @return moves to the goal, or UNREACHABLE
+     */
+    public int getDistance(long board) {
+        return distances[PermutationRank.rank(board, size.getCells())] & 0xFF;
+    }
+
+    /**
+     * <p>
+     * Fill in the table with a breadth first search out from the goal. Every
+     * board is queued once, the first time it is reached, which is by the
+     * fewest moves. With more than one processor the levels are expanded in
+     * parallel by a ParallelBFS.
+     * </p>
+     */
+    public void generate() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (threads > 1) {
+            GridState goal = new GridState(goalBoard,
+                    PermutationRank.blankIndex(goalBoard, size.getCells()),
+                    size);
+            distances = new ParallelBFS(goal, goal, threads).distances();
+            return;
+        }
+        int cells = size.getCells();
+        distances = new byte[PermutationRank.count(cells)];
+        Arrays.fill(distances, (byte) UNREACHABLE);
+        // Only the boards of one parity can be reached, half of them all.
+        long[] queue = new long[distances.length / 2 + 1];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = goalBoard;
+        distances[PermutationRank.rank(goalBoard, cells)] = 0;
+
+        while (head < tail) {
+            long board = queue[head++];
+            int blank = PermutationRank.blankIndex(board, cells);
+            int next = distances[PermutationRank.rank(board, cells)] + 1;
+            for (int target : size.getNeighbours(blank)) {
+                long child = GridState.moveBlank(board, blank, target);
+                int rank = PermutationRank.rank(child, cells);
+                if ((distances[rank] & 0xFF) == UNREACHABLE) {
+                    distances[rank] = (byte) next;
+                    queue[tail++] = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Save the table to a file, with a header naming the grid and goal so it
+     * can be checked when loaded back in.
+     * </p>
+     *
+     * @param file
+     *            the file to save to
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public void save(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(size.getRows());
+            out.writeInt(size.getCols());
+            out.writeLong(goalBoard);
+            out.write(distances);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * <p>
+     * Load a table saved by {@link #save(File)}.
+     * </p>
+     *
+     * @param file
+     *            the file to load
+     * @return True if the file held a table for this grid and goal
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public boolean load(File file) throws IOException {
+        int count = PermutationRank.count(size.getCells());
+        if (!file.isFile() || file.length() != 20 + count) {
+            return false;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != size.getRows()
+                    || in.readInt() != size.getCols()
+                    || in.readLong() != goalBoard) {
+                return false;
+            }
+            byte[] read = new byte[count];
+            in.readFully(read);
+            distances = read;
+            return true;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * <p>
+     * A file name that is unique to the grid and goal.
+     * </p>
+     *
+     * @return name for the table's file
+     */
+    public String getFileName() {
+        return "distances-" + size + "-" + Long.toHexString(goalBoard)
+                + ".bin";
+    }
+}
@@ -14,8 +14,16 @@ public class Driver {
     private FileHandler fH;
     private String startGrid;
     private String goalGrid;
+    private int rows;
+    private int cols;
     private Solver solver;
     private Scanner scan;
+    private TraceLevel traceLevel = TraceLevel.SUMMARY;
+    private int traceEvery = 1;
+    // Only kept when asked for with -Deightpuzzle.jmx=true.
+    private MetricsRecorder metrics;
+    // Kept for every puzzle solved while the Driver runs.
+    private SolutionCache cache;
     
     /**
      * <p>New Driver loads in the files and solves the
@@ -26,7 +34,30 @@ public class Driver {
      * @param mode The users requested mode
      */
     public Driver(String start, String goal, String mode){
+        this(start, goal, mode, "summary");
+    }
+
+    /**
+     * <p>New Driver loads in the files and solves the
+     * puzzle, printing as much of the search as asked for.
+     * </p>
+     * @param start The users requested start state file
+     * @param goal The users requested goal state file
+     * @param mode The users requested mode
+     * @param trace off, summary, full, or a number n to
+     *            print every n-th state expanded
+     */
+    public Driver(String start, String goal, String mode, String trace){
         fH = new FileHandler();
+        cache = SolutionCache.fromProperties();
+        if (Boolean.getBoolean("eightpuzzle.jmx")) {
+            metrics = new MetricsRecorder();
+            metrics.register("driver");
+        }
+        traceLevel = TraceLevel.parse(trace);
+        if (traceLevel == TraceLevel.EVERY_N) {
+            traceEvery = Integer.parseInt(trace);
+        }
         loadPuzzle(start, goal);
         // Assuming the files are not null
         if(startGrid != null && goalGrid != null && mode != null){
@@ -45,6 +76,9 @@ public class Driver {
     private void loadPuzzle(String start, String goal){
      // Open the files requested
         startGrid = fH.readFile(fH.transmogrify(start));
+        // The size of the grid is taken from the start file.
+        rows = fH.getRows();
+        cols = fH.getCols();
         goalGrid = fH.readFile(fH.transmogrify(goal));
     }
     
@@ -59,8 +93,11 @@ public class Driver {
         // Start timer
         long startTime = System.currentTimeMillis();
         // Make a new solver based on the input.
-        solver = new Solver(startGrid, goalGrid, mode);
-        solver.begin();
+        solver = new Solver(startGrid, goalGrid, rows, cols, mode);
+        solver.setMetrics(metrics);
+        solver.setCache(cache);
+        solver.setLimits(SearchLimits.fromProperties());
+        solver.begin(traceLevel, traceEvery);
         // Stop the timer after the solver and inform user.
         long endTime   = System.currentTimeMillis();
         long totalTime = endTime - startTime;
@@ -82,7 +119,7 @@ public class Driver {
             String start = scan.next();
             System.out.println("Goal file?");
             String goal = scan.next();
-            System.out.println("Mode? (bfs/dfs/astar1/astar2)");
+            System.out.println("Mode? (bfs/pbfs/bibfs/dfs/iddfs/astar1/astar2/astar3/wastar1/wastar2/wastar3/arastar1/arastar2/arastar3/pastar1/pastar2/pastar3/idastar1/idastar2/idastar3/table)");
             String mode = scan.next();
             loadPuzzle(start,goal);
             solvePuzzle(mode);
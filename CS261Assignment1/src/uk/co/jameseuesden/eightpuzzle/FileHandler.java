@@ -19,7 +19,9 @@ import java.io.IOException;
 public class FileHandler {
 
     private BufferedReader buffReader;
-    private StringBuffer sb;
+    private StringBuilder sb;
+    private int rows;
+    private int cols;
 
     
     public File transmogrify(String fileName){
@@ -43,40 +45,143 @@ public class FileHandler {
     /**
      * <p>
      * Extracts the content of a file, returning
-     * if as a String.
+     * if as a String. Each non-empty line of the file
+     * is a row of the grid, with its tiles separated by
+     * commas. Tiles are returned one character each, with
+     * tiles above 9 as hex digits (a-f), and the rows and
+     * columns read are kept for {@link #getRows()} and
+     * {@link #getCols()}.
      * </p>
      * 
      * @param file
      * @return content of the file as a String
      */
     public String readFile(File file) {
-        // Make a new null String to represent the elements of the 8 puzzle
+        // Make a new null String to represent the elements of the puzzle
         String grid = null;
+        sb = null;
+        rows = 0;
+        cols = 0;
         try {
             // New FileReader and BufferedReader to read the file contents.
             buffReader = new BufferedReader(new FileReader(file));
-            sb = new StringBuffer();
-            for(int i=0; i<5; i++){
-                // Read the lines of the file.
-                sb.append(buffReader.readLine());
+            sb = new StringBuilder();
+            String line;
+            while((line = buffReader.readLine()) != null){
+                // Skip the blank lines between rows.
+                if(line.trim().isEmpty()){
+                    continue;
+                }
+                // Read the tiles of the row.
+                String[] tiles = line.split(",");
+                if(rows > 0 && tiles.length != cols){
+                    throw new NumberFormatException("Row " + (rows + 1)
+                            + " has " + tiles.length + " tiles, expected " + cols);
+                }
+                cols = tiles.length;
+                rows++;
+                sb.append(toChars(tiles));
             }
+            checkTiles(sb, rows * cols);
             // Safely close the file reader.
             buffReader.close();
             
         } catch (FileNotFoundException e) {
             e.printStackTrace();
+            sb = null;
         } catch (IOException e) {
             e.printStackTrace();
-        } catch (NullPointerException e) {
+            sb = null;
+        } catch (IllegalArgumentException e) {
+            // Includes NumberFormatException from tiles that are not numbers.
             e.printStackTrace();
+            sb = null;
         }
         if(sb != null){
-            // If the file is not null, remove any Commas (,).
-            grid = removeCommas(sb.toString());
+            grid = sb.toString();
         }
         
         return grid;
     }
+
+    /**
+     * <p>Read a line of comma separated tiles, holding the
+     * whole grid along its rows, returning them one character
+     * each, with tiles above 9 as hex digits (a-f).</p>
+     * @param line tiles separated by commas
+     * @param rows rows of the grid
+     * @param cols columns of the grid
+     * @return the tiles as a String
+     * @throws NumberFormatException if a tile is not a number
+     * @throws IllegalArgumentException if the tiles are not each
+     *             of 0 to rows * cols - 1 exactly once
+     */
+    public String readTiles(String line, int rows, int cols){
+        String tiles = toChars(line.split(","));
+        checkTiles(tiles, rows * cols);
+        return tiles;
+    }
+
+    /**
+     * <p>Turn tiles into one character each.</p>
+     * @throws NumberFormatException if a tile is not a number
+     *             or could never fit on a grid
+     */
+    private String toChars(String[] tiles){
+        StringBuilder tileChars = new StringBuilder(tiles.length);
+        for(String tile : tiles){
+            int value = Integer.parseInt(tile.trim());
+            if(value < 0 || value >= GridSize.MAX_CELLS){
+                throw new NumberFormatException("Tile out of range: " + value);
+            }
+            tileChars.append(Character.forDigit(value, 16));
+        }
+        return tileChars.toString();
+    }
+
+    /**
+     * <p>Check a grid's tiles are each of 0 to cells - 1 exactly
+     * once, so no tile is repeated or missing and none is too big
+     * for the grid.</p>
+     * @param tiles one character per tile
+     * @param cells number of cells in the grid
+     * @throws IllegalArgumentException if they are not
+     */
+    private void checkTiles(CharSequence tiles, int cells){
+        if(tiles.length() != cells){
+            throw new IllegalArgumentException("Grid has " + tiles.length()
+                    + " tiles, expected " + cells);
+        }
+        boolean[] seen = new boolean[cells];
+        for(int i = 0; i < cells; i++){
+            int value = Character.digit(tiles.charAt(i), 16);
+            if(value >= cells){
+                throw new IllegalArgumentException("Tile " + value
+                        + " is too big for a grid of " + cells + " cells");
+            }
+            if(seen[value]){
+                throw new IllegalArgumentException("Tile " + value
+                        + " appears more than once");
+            }
+            seen[value] = true;
+        }
+    }
+
+    /**
+     * <p>Number of rows in the last file read.</p>
+     * @return rows of the grid
+     */
+    public int getRows(){
+        return rows;
+    }
+
+    /**
+     * <p>Number of columns in the last file read.</p>
+     * @return columns of the grid
+     */
+    public int getCols(){
+        return cols;
+    }
     
     /**
      * <p>Replace commas with null character
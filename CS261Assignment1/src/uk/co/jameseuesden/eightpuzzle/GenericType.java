@@ -12,28 +12,46 @@ import java.util.Collection;
  */
 public abstract class GenericType{
     public GridState goal;
+
+    // What the current search has done so far, reset by startSearch().
+    protected int expandedStates = 0;
+    protected int generatedStates = 0;
+    protected int peakFrontier = 0;
+    private long startTime;
+    private SearchLimits limits;
+    // Why the search was stopped early, or null while it is within its limits.
+    private volatile SolveResult.Status stoppedBy;
+    // States held in the open and closed lists, for the memory limit.
+    private long heldStates;
+    private int limitChecks;
+    private SearchListener listener;
+    private SearchMetrics metrics;
     
-    public abstract void findPath();
+    /**
+     * <p>Finds the path from the start state to the goal state.</p>
+     * 
+     * @return the moves found and what it took to find them
+     */
+    public abstract SolveResult findPath();
     
     public abstract void movement(int zeroIndex, int direction, GridState current);
     
     /**
-     * <p>Static directions allow us to always find the legal set of possible
-     * directions of the empty state and create children from the current parent
-     * state.</p>
+     * <p>The grid's table of neighbours allows us to always find the legal
+     * set of possible directions of the empty state and create children from
+     * the current parent state.</p>
      * 
      * @param current grid state just explored
      */
     public void findChildren(GridState current) {
-        int zeroIndex = current.getElements().indexOf('0');
+        int zeroIndex = current.getBlankIndex();
         /*
-         * Directions are always -3, -1, +1 or +3 in the array of chars in the
-         * String, as we are using a 3x3 grid
+         * Directions are always -cols, -1, +1 or +cols in the array of tiles,
+         * so for a 3x3 grid they are -3, -1, +1 or +3.
          */
-        this.movement(zeroIndex, 3, current);
-        this.movement(zeroIndex, -3, current);
-        this.movement(zeroIndex, -1, current);
-        this.movement(zeroIndex, 1, current);
+        for (int target : current.getSize().getNeighbours(zeroIndex)) {
+            this.movement(zeroIndex, target - zeroIndex, current);
+        }
     }
    
     
@@ -108,36 +126,16 @@ public abstract class GenericType{
      * @return
      */
     public boolean rulesForMovement(int zeroIndex, int direction) {
-        boolean withinPossibility = false;
-        // Check the index is not on the 'edge' and going to 'wrap' over.
-        if ((zeroIndex == 2 || zeroIndex == 5 || zeroIndex == 8)
-                && direction == 1) {
-            withinPossibility = false;
-        } else if ((zeroIndex == 0 || zeroIndex == 3 || zeroIndex == 6)
-                && direction == -1) {
-            withinPossibility = false;
-        // Check the zero is not on the top or bottom row and trying to move out of bounds.
-        } else if (((zeroIndex <= 2) && (direction == -3))
-                || ((zeroIndex >= 6) && (direction == 3))) {
-            withinPossibility = false;
-        }
-
-        // Check that the calculated movement is within range (0 - 8)
-        else {
-            int indexToBe = zeroIndex + direction;
-            if (indexToBe >= 0 && indexToBe <= 8) {
-                withinPossibility = true;
-            }
-        }
-        // return result of checks
-        return withinPossibility;
+        // The goal's grid size knows every legal move from every index.
+        return goal.getSize().canMove(zeroIndex, direction);
     }
 
     /**
      * <p>Create a child node based on if it is a legal state after a tile
-     * movement.</p>
+     * movement. The blank tile is swapped with the tile it moves onto
+     * directly in the parent's packed board.</p>
      * 
-     * @param parentElements
+     * @param parent
      *            state of the parent
      * @param zeroIndex
      *            location of the empty tile in the parent state
@@ -145,21 +143,13 @@ public abstract class GenericType{
      *            direction of movement of the empty tile
      * @return the created child GridState
      */
-    protected GridState createChild(String parentElements, int zeroIndex,
+    protected GridState createChild(GridState parent, int zeroIndex,
             int direction) {
-        // Split the elements in order to move the empty space by
-        // 'swapping' two elements at relevant indexes.
-        char[] seperateElements = parentElements.toCharArray();
-        // Get the character that will be replaced by the blank tile.
-        char toMove = seperateElements[zeroIndex + direction];
-        // Replace the moved tile with the blank tile
-        seperateElements[zeroIndex + direction] = '0';
-        // Old position of 0/empty space becomes what it has swapped with
-        seperateElements[zeroIndex] = toMove;
-        // Put the character array back into a String.
-        String childElements = new String(seperateElements);
-        // Return a new 'Child' GridState, using the char array with the moved tiles
-        return new GridState(childElements);
+        // Move the empty space by 'swapping' the two tiles at relevant indexes.
+        long childBoard = parent.moveBlank(zeroIndex + direction);
+        // Return a new 'Child' GridState, with the blank in its new place
+        return new GridState(childBoard, zeroIndex + direction,
+                parent.getSize());
     }
     
     /**
@@ -179,54 +169,336 @@ public abstract class GenericType{
 
         return null;
     }
+
+    /**
+     * <p>Looks up the given GridState in a hashed
+     * table of states by its board, returning the
+     * GridState held in the table or null if there
+     * is none. Unlike scanning a list this is O(1).
+     * </p>
+     * @param state
+     * @param table
+     * @return
+     */
+    public GridState inList(GridState state, StateTable table) {
+        return table.get(state.getBoard());
+    }
     
     
-    //------------- PRINT METHODS --------------
-    
+    //------------- RESULT METHODS --------------
+
     /**
-     * Prints the grid requested to the console.
-     * 
-     * @param gridInput
-     *            - Any GridState to be printed.
-     */
- 
-    public void printGrid(GridState gridInput) {
-        String activeElements = gridInput.getElements();
-        System.out.println("-----");
-        for (int i = 0; i < activeElements.length(); i++) {
-            if (activeElements.charAt(i) == '0') {
-                System.out.print("  ");
-            } else {
-                System.out.print(activeElements.charAt(i) + " ");
-            }
-            if (((i + 1) % 3) == 0) {
-                System.out.println();
-            }
+     * <p>Set the listener told about the progress of every search,
+     * or null to search without reporting anything.</p>
+     * @param listener
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    public SearchListener getListener() {
+        return listener;
+    }
+
+    /**
+     * <p>Set the metrics told the details of every search, or null
+     * to search without keeping any.</p>
+     * @param metrics
+     */
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * <p>Set the limits every search is stopped by, or null for
+     * none.</p>
+     * @param limits
+     */
+    public void setLimits(SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    public SearchLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * <p>Set how long a search may run before it gives up, or 0
+     * for no limit, keeping any other limits already set.</p>
+     * @param millis time limit in milliseconds
+     */
+    public void setTimeLimit(long millis) {
+        if (limits == null) {
+            limits = new SearchLimits();
         }
+        limits.setTimeLimit(millis);
     }
-    
+
     /**
-     * <p>Prints the success of the application
-     * in finding the goal state, including how
-     * many GridStates were expanded and the parent
-     * of the grid state.
-     * </p>
-     * @param current grid state to be used
+     * <p>Check the search against its limits, once a state has
+     * been expanded. The clock is only looked at every 256 checks.
+     * Once a limit is reached it stays reached for the rest of the
+     * search.</p>
+     * @return True if the search should stop
      */
-    public void printSuccess(GridState current, int expandedStates){
-        System.out.println("------");
-        System.out.println("Found goal state match!");
-        this.printGrid(current);
-        
-        System.out.println("------");
-        System.out.println("Parent to Goal:");
-        // In case the start state and goal state are the same on the first run.
-        if(current.getParent() != null){
-            this.printGrid(new GridState(current.getParent().getElements()));
+    protected boolean limitReached() {
+        return limitReached((++limitChecks & 0xFF) == 0);
+    }
+
+    /**
+     * <p>Check the search against its limits, for searches that
+     * check less often than once a state.</p>
+     * @param checkClock True to look at the clock too
+     * @return True if the search should stop
+     */
+    protected boolean limitReached(boolean checkClock) {
+        if (stoppedBy != null) {
+            return true;
         }
-        System.out.println("Grid States expanded: " + expandedStates);
+        if (limits == null) {
+            return false;
+        }
+        stoppedBy = limits.check(expandedStates, heldStates, startTime,
+                checkClock);
+        return stoppedBy != null;
     }
-    
+
+    /**
+     * <p>Stop the search with the given status, for searches that
+     * check their limits themselves.</p>
+     * @param status why the search was stopped
+     */
+    protected void stop(SolveResult.Status status) {
+        if (stoppedBy == null) {
+            stoppedBy = status;
+        }
+    }
+
+    /**
+     * <p>Check if the search has been stopped by a limit.</p>
+     * @return True if it has
+     */
+    protected boolean isStopped() {
+        return stoppedBy != null;
+    }
+
+    protected long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * <p>Reset the counts and start the clock for a new search.</p>
+     */
+    protected void startSearch() {
+        expandedStates = 0;
+        generatedStates = 0;
+        peakFrontier = 0;
+        stoppedBy = null;
+        heldStates = 0;
+        limitChecks = 0;
+        startTime = System.nanoTime();
+        if (metrics != null) {
+            metrics.searchStarted(getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * <p>Count a state as expanded and tell the listener about it.</p>
+     * @param state the state about to have its children made
+     */
+    protected void expand(GridState state) {
+        expanded(state.getDepth());
+        if (listener != null) {
+            listener.stateExpanded(state);
+        }
+    }
+
+    /**
+     * <p>Count a state at the given depth as expanded, for searches
+     * that do not make a GridState for it.</p>
+     * @param depth depth of the state
+     */
+    protected void expanded(int depth) {
+        expandedStates++;
+        if (metrics != null) {
+            metrics.statesExpanded(depth, 1);
+        }
+    }
+
+    /**
+     * <p>Count a child state as made.</p>
+     */
+    protected void generated() {
+        generatedStates++;
+        if (metrics != null) {
+            metrics.statesGenerated(1);
+        }
+    }
+
+    /**
+     * <p>Count a child thrown away as already reached.</p>
+     */
+    protected void pruned() {
+        if (metrics != null) {
+            metrics.duplicatePruned();
+        }
+    }
+
+    /**
+     * <p>Count a state reached again by a cheaper path.</p>
+     */
+    protected void reopened() {
+        if (metrics != null) {
+            metrics.stateReopened();
+        }
+    }
+
+    /**
+     * <p>Count a heuristic cost worked out.</p>
+     */
+    protected void evaluated() {
+        if (metrics != null) {
+            metrics.heuristicEvaluated();
+        }
+    }
+
+    /**
+     * <p>Keep track of the sizes of the open and closed lists.</p>
+     * @param open states waiting to be expanded
+     * @param closed states already expanded
+     */
+    protected void listSizes(int open, int closed) {
+        frontierSize(open);
+        heldStates = (long) open + closed;
+        if (metrics != null) {
+            metrics.listSizes(open, closed);
+        }
+    }
+
+    /**
+     * <p>Keep track of the most states ever waiting to be expanded.</p>
+     * @param size current size of the frontier
+     */
+    protected void frontierSize(int size) {
+        if (size > peakFrontier) {
+            peakFrontier = size;
+        }
+    }
+
+    /**
+     * <p>Tell the listener about a path found before the search
+     * has finished, for searches that go on to look for a shorter
+     * one.</p>
+     * @param found the goal state linked back through its parents
+     *            to the start
+     * @param bound the path is at most this many times longer than
+     *            the shortest
+     */
+    protected void solutionFound(GridState found, double bound) {
+        if (listener != null) {
+            listener.solutionFound(new SolveResult(SolveResult.Status.SOLVED,
+                    movesTo(found), expandedStates, generatedStates,
+                    peakFrontier, System.nanoTime() - startTime), found, bound);
+        }
+    }
+
+    /**
+     * <p>Stop the clock and build the result of the search, telling
+     * the listener it has finished. A search stopped by a limit keeps
+     * the status of that limit even if it has a path to return, as a
+     * path found before it finished may not be the one it would have
+     * found in the end.</p>
+     * @param found the goal state linked back through its parents to
+     *            the start, or null if it was not found
+     * @return the result of the search
+     */
+    protected SolveResult finishSearch(GridState found) {
+        long elapsed = System.nanoTime() - startTime;
+        SolveResult.Status status = SolveResult.Status.SOLVED;
+        if (stoppedBy != null) {
+            status = stoppedBy;
+        } else if (found == null) {
+            status = SolveResult.Status.EXHAUSTED;
+        }
+        SolveResult result = new SolveResult(status,
+                found == null ? null : movesTo(found), expandedStates,
+                generatedStates, peakFrontier, elapsed);
+        if (metrics != null) {
+            metrics.searchFinished(result);
+        }
+        if (listener != null) {
+            listener.searchFinished(result, found);
+        }
+        return result;
+    }
+
+    /**
+     * <p>Spell out the moves of the blank tile along the parents of
+     * a state, from the start state down to it.</p>
+     * @param found the last state of the path
+     * @return one of U, D, L or R per move
+     */
+    public static String movesTo(GridState found) {
+        StringBuilder moves = new StringBuilder();
+        int cols = found.getSize().getCols();
+        for (GridState child = found; child.getParent() != null; child = child
+                .getParent()) {
+            moves.append(moveLetter(child.getParent().getBlankIndex(),
+                    child.getBlankIndex(), cols));
+        }
+        return moves.reverse().toString();
+    }
+
+    /**
+     * <p>Make the moves of the blank tile from a state, linking
+     * each new state to the one before, for searches that only
+     * logged the moves and not the states.</p>
+     * @param start the state to move from
+     * @param moves one of U, D, L or R per move
+     * @return the last state, linked back through its parents
+     */
+    protected GridState replay(GridState start, String moves) {
+        GridState current = start;
+        int cols = start.getSize().getCols();
+        for (int i = 0; i < moves.length(); i++) {
+            int zeroIndex = current.getBlankIndex();
+            GridState child = createChild(current, zeroIndex,
+                    MoveLog.direction(moves.charAt(i), cols));
+            child.setParent(current);
+            current = child;
+        }
+        return current;
+    }
+
+    /**
+     * <p>The letter for a move of the blank tile from one index to
+     * a neighbouring one.</p>
+     */
+    public static char moveLetter(int from, int to, int cols) {
+        int direction = to - from;
+        if (direction == cols) {
+            return 'D';
+        } else if (direction == -cols) {
+            return 'U';
+        } else if (direction == 1) {
+            return 'R';
+        }
+        return 'L';
+    }
+
+    /**
+     * <p>Whether the search always finds a path of the fewest moves,
+     * so every part of the path on to the goal is also the shortest.</p>
+     * @return True unless the search can return a longer path
+     */
+    public boolean isOptimal() {
+        return true;
+    }
+
     public abstract void printType();
     
 }
@@ -0,0 +1,160 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * The dimensions of a sliding puzzle grid, along with a table of which
+ * indexes the blank tile can move to from every index. Made once per size
+ * and shared by every GridState of that size, so moves never have to be
+ * worked out from the rows and columns while searching.
+ * </p>
+ * <p>
+ * GridStates pack 4 bits per tile into a long, so a grid can have at most
+ * 16 cells (e.g. the 15 puzzle).
+ * </p>
+ */
+public class GridSize {
+    public static final int MAX_CELLS = 16;
+
+    private static final GridSize[][] SIZES = new GridSize[MAX_CELLS + 1][MAX_CELLS + 1];
+
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int[][] neighbours;
+
+    private GridSize(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        cells = rows * cols;
+        neighbours = new int[cells][];
+        for (int i = 0; i < cells; i++) {
+            int row = i / cols;
+            int col = i % cols;
+            int[] targets = new int[4];
+            int count = 0;
+            // Moves are always tried down, up, left, then right.
+            if (row < rows - 1) {
+                targets[count++] = i + cols;
+            }
+            if (row > 0) {
+                targets[count++] = i - cols;
+            }
+            if (col > 0) {
+                targets[count++] = i - 1;
+            }
+            if (col < cols - 1) {
+                targets[count++] = i + 1;
+            }
+            neighbours[i] = new int[count];
+            System.arraycopy(targets, 0, neighbours[i], 0, count);
+        }
+    }
+
+    /**
+     * <p>
+     * Get the size for a grid of the given rows and columns.
+     * </p>
+     *
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @return the shared GridSize
+     */
+    public static synchronized GridSize of(int rows, int cols) {
+        if (rows < 2 || cols < 2 || rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("Unsupported grid size " + rows
+                    + "x" + cols);
+        }
+        GridSize size = SIZES[rows][cols];
+        if (size == null) {
+            size = new GridSize(rows, cols);
+            SIZES[rows][cols] = size;
+        }
+        return size;
+    }
+
+    /**
+     * <p>
+     * Get the size of a square grid with the given number of cells, e.g. 9
+     * for the 8 puzzle or 16 for the 15 puzzle.
+     * </p>
+     *
+     * @param cells
+     *            number of cells in the grid
+     * @return the shared GridSize
+     */
+    public static GridSize square(int cells) {
+        int side = (int) Math.round(Math.sqrt(cells));
+        if (side * side != cells) {
+            throw new IllegalArgumentException(cells
+                    + " cells do not make a square grid");
+        }
+        return of(side, side);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    /**
+     * <p>
+     * Get every index the blank tile can move to from the given index.
+     * </p>
+     *
+     * @param index
+     *            location of the blank tile
+     * @return the indexes the blank can move to
+     */
+    public int[] getNeighbours(int index) {
+        return neighbours[index];
+    }
+
+    /**
+     * <p>
+     * Check the blank tile can move in the given direction from the given
+     * index without leaving the grid or wrapping onto another row.
+     * </p>
+     *
+     * @param index
+     *            location of the blank tile
+     * @param direction
+     *            movement of the blank tile, +/-1 or +/-cols
+     * @return True if the move is legal
+     */
+    public boolean canMove(int index, int direction) {
+        if (index < 0 || index >= cells) {
+            return false;
+        }
+        for (int target : neighbours[index]) {
+            if (target == index + direction) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        GridSize other = (GridSize) obj;
+        return other.rows == rows && other.cols == cols;
+    }
+
+    @Override
+    public int hashCode() {
+        return rows * (MAX_CELLS + 1) + cols;
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols;
+    }
+}
@@ -5,26 +5,183 @@ package uk.co.jameseuesden.eightpuzzle;
  * children/successors. Implements comparable to be used for determining
  * heuristic values with a priority queue in A* Search.
  * </p>
+ * <p>The tiles are packed into a single long, 4 bits per tile, with
+ * the tile at index i held in bits 4i to 4i+3. The index of the blank
+ * tile is cached so that children can be made by swapping two nibbles
+ * rather than building new Strings. The dimensions of the grid are held
+ * in a shared GridSize.
+ * </p>
  * @author James Euesden - jee22
  *
  */
 public class GridState implements Comparable<GridState>{
-    private String gridElements;
+    private long board;
+    private int blankIndex;
+    private GridSize size;
     private GridState parent = null;
     private int cost = 0;
     private int depth = 1;
     private int heuristicCost = 0;
+    private int heapIndex = -1;
+    private int id = MoveLog.ROOT;
 
+    /**
+     * <p>New GridState of a square grid, one character per tile,
+     * with tiles above 9 written as hex digits (a-f).
+     * </p>
+     * @param input the tiles of the grid
+     */
     public GridState(String input) {
-        gridElements = input;
+        this(input, GridSize.square(input.length()));
+    }
+
+    /**
+     * <p>New GridState of a grid with the given rows and columns.</p>
+     * @param input the tiles of the grid
+     * @param rows number of rows
+     * @param cols number of columns
+     */
+    public GridState(String input, int rows, int cols) {
+        this(input, GridSize.of(rows, cols));
     }
 
+    private GridState(String input, GridSize size) {
+        this.size = size;
+        setElements(input);
+    }
+
+    /**
+     * <p>New GridState straight from a packed board, used when
+     * creating children without going through a String.
+     * </p>
+     * @param board the packed tiles
+     * @param blankIndex index of the blank tile in the board
+     * @param size dimensions of the grid
+     */
+    public GridState(long board, int blankIndex, GridSize size) {
+        this.board = board;
+        this.blankIndex = blankIndex;
+        this.size = size;
+    }
+
+    /**
+     * <p>The tiles as a String of digits, one character per tile.
+     * Only used for reading in and printing, the search itself
+     * works on the packed board.
+     * </p>
+     * @return the elements of the grid as a String
+     */
     public String getElements() {
-        return gridElements;
+        char[] elements = new char[size.getCells()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = Character.forDigit(getTile(i), 16);
+        }
+        return new String(elements);
     }
 
     public void setElements(String newElements) {
-        gridElements = newElements;
+        if (newElements.length() != size.getCells()) {
+            throw new IllegalArgumentException(newElements
+                    + " does not fit a " + size + " grid");
+        }
+        long packed = 0L;
+        int blank = blankIndex;
+        for (int i = 0; i < newElements.length(); i++) {
+            long tile = Character.digit(newElements.charAt(i), 16);
+            // Anything else would spill into the other tiles of the board.
+            if (tile < 0 || tile >= size.getCells()) {
+                throw new IllegalArgumentException("'" + newElements.charAt(i)
+                        + "' is not a tile of a " + size + " grid");
+            }
+            if (tile == 0) {
+                blank = i;
+            }
+            packed |= tile << (i << 2);
+        }
+        board = packed;
+        blankIndex = blank;
+    }
+
+    public long getBoard() {
+        return board;
+    }
+
+    public int getBlankIndex() {
+        return blankIndex;
+    }
+
+    public int getLength() {
+        return size.getCells();
+    }
+
+    public GridSize getSize() {
+        return size;
+    }
+
+    /**
+     * <p>Get the tile at the given index of the grid.</p>
+     * @param index position in the grid
+     * @return the tile, 0 being the blank tile
+     */
+    public int getTile(int index) {
+        return (int) ((board >>> (index << 2)) & 0xF);
+    }
+
+    /**
+     * <p>Swap the blank tile with the tile at the given index, giving
+     * the packed board of the resulting state. The blank is 0, so the
+     * swap only has to move the other tile into the blank's nibble
+     * and clear its old one.
+     * </p>
+     * @param target index of the tile to swap with the blank
+     * @return the packed board after the move
+     */
+    public long moveBlank(int target) {
+        return moveBlank(board, blankIndex, target);
+    }
+
+    /**
+     * <p>Swap the blank tile with the tile at the given index of any
+     * packed board, for searches that move tiles on a single board in
+     * place rather than making a GridState for every child.
+     * </p>
+     * @param board the packed board
+     * @param blankIndex index of the blank tile in the board
+     * @param target index of the tile to swap with the blank
+     * @return the packed board after the move
+     */
+    public static long moveBlank(long board, int blankIndex, int target) {
+        long tile = (board >>> (target << 2)) & 0xF;
+        return (board & ~(0xFL << (target << 2))) | (tile << (blankIndex << 2));
+    }
+
+    /**
+     * <p>The parity that no move can change: the number of inversions
+     * (pairs of tiles in the wrong order, ignoring the blank), plus the
+     * row of the blank when the grid has an even number of columns.
+     * Sliding a tile sideways never changes the inversions, and sliding
+     * one up or down passes it over cols - 1 others, which only flips
+     * the inversions' parity when cols is even, when the blank's row
+     * flips it back. Two states of the same size can only reach each
+     * other if this parity is the same.
+     * </p>
+     * @return 0 or 1
+     */
+    public int getParity() {
+        int inversions = 0;
+        int seen = 0;
+        for (int i = 0; i < size.getCells(); i++) {
+            int tile = getTile(i);
+            if (tile != 0) {
+                // Count the tiles before this one that are bigger than it.
+                inversions += Integer.bitCount(seen >>> tile);
+                seen |= 1 << tile;
+            }
+        }
+        if (size.getCols() % 2 == 0) {
+            inversions += blankIndex / size.getCols();
+        }
+        return inversions & 1;
     }
 
     public int setParent(GridState newParent) {
@@ -63,22 +220,53 @@ public class GridState implements Comparable<GridState>{
         return heuristicCost;
     }
 
+    /**
+     * <p>Position of this state in the OpenList heap, or -1 when it
+     * is not in one.</p>
+     * @return index in the heap
+     */
+    int getHeapIndex() {
+        return heapIndex;
+    }
+
+    void setHeapIndex(int heapIndex) {
+        this.heapIndex = heapIndex;
+    }
+
+    /**
+     * <p>Id of this state in the MoveLog of the search that made
+     * it, for searches that log moves rather than link parents.</p>
+     * @return id in the move log
+     */
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
     @Override
     public boolean equals(Object obj) {
         GridState testGrid = (GridState) obj;
-        String test = testGrid.getElements();
-        if (test.equals(gridElements)) {
-            return true;
-        } else {
-            return false;
-        }
+        return testGrid.getBoard() == board;
+    }
+
+    @Override
+    public int hashCode() {
+        return StateTable.hash(board);
     }
 
+    /**
+     * <p>Order states by f = g + h, the cost of the path so far
+     * plus the heuristic cost still to go. The depth is not added
+     * as well, as in A* it is the same as the cost.</p>
+     */
     @Override
     public int compareTo(GridState oGrid) {
       
-        int tCost = this.getCost() + this.getHeuristicCost() + this.getDepth();
-        int oCost = oGrid.getCost() + oGrid.getHeuristicCost() + oGrid.getDepth();
+        int tCost = this.getCost() + this.getHeuristicCost();
+        int oCost = oGrid.getCost() + oGrid.getHeuristicCost();
         
         if(tCost < oCost){
             return -1;
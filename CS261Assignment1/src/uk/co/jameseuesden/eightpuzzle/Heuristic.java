@@ -2,7 +2,9 @@ package uk.co.jameseuesden.eightpuzzle;
 
 /**
  * <p>
- * Heuristics must have a cost method.
+ * Heuristics must have a cost method, and a way of finding how
+ * that cost changes when a single tile is moved, so a child's cost
+ * can be worked out from its parent's without looking at every tile.
  * </p>
  * @author James Euesden - jee22
  *
@@ -10,5 +12,19 @@ package uk.co.jameseuesden.eightpuzzle;
 public interface Heuristic {
 
     public abstract int getHeuristicCost(GridState child, GridState goal);
+
+    /**
+     * <p>
+     * The change in heuristic cost when the tile at fromIndex is slid
+     * into the blank at toIndex.
+     * </p>
+     * @param board the packed board before the move
+     * @param fromIndex where the moving tile is
+     * @param toIndex where the moving tile goes (the blank)
+     * @param goal the goal state
+     * @return the child's cost minus the parent's cost
+     */
+    public abstract int getHeuristicDelta(long board, int fromIndex,
+            int toIndex, GridState goal);
     
 }
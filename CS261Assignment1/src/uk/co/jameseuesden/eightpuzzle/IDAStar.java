@@ -0,0 +1,293 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * Solve the 8 puzzle using Iterative Deepening A* Search. Repeats a depth
+ * first search that cuts off any state whose path cost plus heuristic cost
+ * is over a bound, raising the bound to the smallest cost that was cut off
+ * each time, until the goal is found. Finds the same optimal depth as A*,
+ * but only ever holds the current path in memory.
+ * </p>
+ * <p>
+ * Rather than making a GridState per child, the search slides tiles on a
+ * single packed board and slides them back when it returns. A move that
+ * would put the blank straight back where it just came from is never made.
+ * </p>
+ */
+public class IDAStar extends GenericType {
+    private GridState parent;
+    private Heuristic heuristic;
+    private String modeWords;
+
+    // The single board the search moves tiles around on.
+    private long board;
+    private int blankIndex;
+    private long goalBoard;
+    private int bound;
+    private int nextBound;
+    // Where the blank was at each depth of the current path.
+    private int[] pathBlanks;
+    // Where the blank can move to from each index.
+    private int[][] neighbours;
+
+    /**
+     * <p>
+     * New IDA* Search sets the goal and start state and determines what
+     * 'heuristic mode' the search should use.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     * @param mode
+     *            1 for Manhattan Distance, 2 for Tiles out of place, 3 for
+     *            Pattern Database
+     */
+    public IDAStar(GridState input, GridState goal, int mode) {
+        parent = input;
+        this.goal = goal;
+        pathBlanks = new int[64];
+        defineMode(mode);
+    }
+
+    /**
+     * <p>Sets the heuristic to Manhattan, Tile or Pattern Database based.
+     * Updates a String to be used in informing the user of
+     * which heuristic is under use. <br />
+     * Default is Manhattan Distance.
+     * </p>
+     * @param mode
+     */
+    private void defineMode(int mode) {
+        switch (mode) {
+        case (1):
+            heuristic = new ManhattanHeuristic();
+            modeWords = "Manhattan Distance";
+            break;
+        case (2):
+            heuristic = new TileHeuristic();
+            modeWords = "Tiles out of place";
+            break;
+        case (3):
+            heuristic = new PatternDatabaseHeuristic();
+            modeWords = "Pattern Database";
+            break;
+        default:
+            heuristic = new ManhattanHeuristic();
+            modeWords = "Manhattan Distance";
+        }
+    }
+
+    /**
+     * <p>
+     * Finds an optimal path from the start state to the goal state, starting
+     * with the start state's heuristic cost as the bound.
+     * </p>
+     */
+    public SolveResult findPath() {
+        startSearch();
+        board = parent.getBoard();
+        blankIndex = parent.getBlankIndex();
+        goalBoard = goal.getBoard();
+        GridSize size = goal.getSize();
+        neighbours = new int[size.getCells()][];
+        for (int i = 0; i < neighbours.length; i++) {
+            neighbours[i] = size.getNeighbours(i);
+        }
+        int startCost = heuristic.getHeuristicCost(parent, goal);
+        this.evaluated();
+        bound = startCost;
+
+        while (true) {
+            nextBound = Integer.MAX_VALUE;
+            int depth = search(0, startCost, -1);
+            if (depth >= 0) {
+                return finishSearch(buildPath(depth));
+            }
+            // Nothing was cut off, so there is nowhere left to look.
+            if (nextBound == Integer.MAX_VALUE || this.isStopped()) {
+                return finishSearch(null);
+            }
+            bound = nextBound;
+        }
+    }
+
+    /**
+     * <p>
+     * Depth first search from the current board, which is g moves from the
+     * start and has heuristic cost h.
+     * </p>
+     *
+     * @param g
+     *            path cost to the current board
+     * @param h
+     *            heuristic cost of the current board
+     * @param previousBlank
+     *            where the blank was before the last move, or -1 at the start
+     * @return the depth of the goal if it was found below here, or -1
+     */
+    private int search(int g, int h, int previousBlank) {
+        int f = g + h;
+        // Cut off anything over the bound, remembering the least of them.
+        if (f > bound) {
+            if (f < nextBound) {
+                nextBound = f;
+            }
+            return -1;
+        }
+        if (board == goalBoard) {
+            return g;
+        }
+        // Only make a GridState to report if anything is listening.
+        if (getListener() != null) {
+            GridState state = new GridState(board, blankIndex, goal.getSize());
+            state.setDepth(g);
+            this.expand(state);
+        } else {
+            this.expanded(g);
+        }
+        if (this.limitReached()) {
+            return -1;
+        }
+        // The path held is the frontier of a depth first search.
+        this.frontierSize(g + 1);
+        if (g == pathBlanks.length) {
+            int[] longer = new int[pathBlanks.length * 2];
+            System.arraycopy(pathBlanks, 0, longer, 0, g);
+            pathBlanks = longer;
+        }
+        pathBlanks[g] = blankIndex;
+
+        int zeroIndex = blankIndex;
+        for (int target : neighbours[zeroIndex]) {
+            // Don't undo the move that was just made.
+            if (target == previousBlank) {
+                this.pruned();
+                continue;
+            }
+            int delta = heuristic.getHeuristicDelta(board, target, zeroIndex,
+                    goal);
+            this.evaluated();
+            this.generated();
+            // Make the move..
+            board = GridState.moveBlank(board, zeroIndex, target);
+            blankIndex = target;
+            int found = search(g + 1, h + delta, zeroIndex);
+            if (found >= 0) {
+                return found;
+            }
+            // ..and unmake it.
+            board = GridState.moveBlank(board, target, zeroIndex);
+            blankIndex = zeroIndex;
+            if (this.isStopped()) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * <p>
+     * Replay the blank positions of the path found from the start state, so
+     * the goal can be printed with its parent like the other searches.
+     * </p>
+     *
+     * @param depth
+     *            depth of the goal
+     * @return the goal GridState, linked back through its parents
+     */
+    private GridState buildPath(int depth) {
+        GridState current = parent;
+        current.setDepth(0);
+        for (int g = 1; g <= depth; g++) {
+            int target = g < depth ? pathBlanks[g] : goal.getBlankIndex();
+            GridState child = createChild(current, pathBlanks[g - 1], target
+                    - pathBlanks[g - 1]);
+            child.setParent(current);
+            current = child;
+        }
+        return current;
+    }
+
+    /**
+     * <p>
+     * IDA* makes and unmakes its moves in place in search(), rather than
+     * making child GridStates, so this is never used.
+     * </p>
+     */
+    public void movement(int zeroIndex, int direction, GridState current) {
+    }
+
+    /**
+     * <p>
+     * IDA* has no open list, the only states it holds are on the current
+     * path, so the nearest thing is the board being searched from.
+     * </p>
+     *
+     * @return the board currently being searched from
+     */
+    public GridState getFirstInOpen() {
+        return new GridState(board, blankIndex, parent.getSize());
+    }
+
+    /**
+     * <p>
+     * IDA* has no open list.
+     * </p>
+     */
+    public void addToOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * IDA* has no open list.
+     * </p>
+     */
+    public boolean inOpenList(GridState state) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * IDA* has no open list.
+     * </p>
+     */
+    public void removeFromOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * IDA* has no closed list.
+     * </p>
+     */
+    public void addToClosed(GridState state) {
+    }
+
+    /**
+     * <p>
+     * IDA* has no closed list.
+     * </p>
+     */
+    public boolean inClosedList(GridState state) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * IDA* has no closed list.
+     * </p>
+     */
+    public void removeFromClosed(GridState state) {
+    }
+
+    /**
+     * <p>
+     * Inform the user of the search method used.
+     * </p>
+     */
+    @Override
+    public void printType() {
+        System.out.println("IDA* Search - " + modeWords);
+    }
+}
@@ -0,0 +1,276 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * Solve the 8 puzzle using Iterative Deepening Depth First Search. Repeats
+ * a depth first search that goes no deeper than a depth limit, raising the
+ * limit by one each time, until the goal is found. Like BFS it finds the
+ * shortest path, but like DFS it only ever holds the current path in
+ * memory, a board and a blank index for each depth.
+ * </p>
+ * <p>
+ * There is no closed list. Instead a board is only skipped if it is
+ * already on the current path. A move that would put the blank straight
+ * back where it just came from is never made, and a board can only come
+ * back after an even number of moves, as each move takes the blank between
+ * the two colours of a chequered grid, so only every other board on the
+ * path from four moves back needs looking at. Like IDA*, the search slides
+ * tiles on a single packed board and slides them back when it returns.
+ * </p>
+ */
+public class IterativeDeepeningDFS extends GenericType {
+    private GridState parent;
+
+    // The single board the search moves tiles around on.
+    private long board;
+    private int blankIndex;
+    private long goalBoard;
+    private int limit;
+    // True if any board was left unexpanded at the depth limit.
+    private boolean cutOff;
+    // The board and where the blank was at each depth of the current path.
+    private long[] pathBoards;
+    private int[] pathBlanks;
+    // Where the blank can move to from each index.
+    private int[][] neighbours;
+
+    /**
+     * <p>
+     * New iterative deepening DFS sets the goal and start state.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     */
+    public IterativeDeepeningDFS(GridState input, GridState goal) {
+        parent = input;
+        this.goal = goal;
+        pathBoards = new long[64];
+        pathBlanks = new int[64];
+    }
+
+    /**
+     * <p>
+     * Finds a shortest path from the start state to the goal state, with a
+     * depth limit of 0 then 1, 2 and so on.
+     * </p>
+     */
+    public SolveResult findPath() {
+        startSearch();
+        board = parent.getBoard();
+        blankIndex = parent.getBlankIndex();
+        goalBoard = goal.getBoard();
+        GridSize size = goal.getSize();
+        neighbours = new int[size.getCells()][];
+        for (int i = 0; i < neighbours.length; i++) {
+            neighbours[i] = size.getNeighbours(i);
+        }
+
+        for (limit = 0;; limit++) {
+            cutOff = false;
+            int depth = search(0, -1);
+            if (depth >= 0) {
+                return finishSearch(buildPath(depth));
+            }
+            // Every path ended before the limit, so going deeper finds nothing.
+            if (!cutOff || this.isStopped()) {
+                return finishSearch(null);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Depth first search from the current board, which is g moves from the
+     * start, going no deeper than the limit.
+     * </p>
+     *
+     * @param g
+     *            depth of the current board
+     * @param previousBlank
+     *            where the blank was before the last move, or -1 at the start
+     * @return the depth of the goal if it was found below here, or -1
+     */
+    private int search(int g, int previousBlank) {
+        if (board == goalBoard) {
+            return g;
+        }
+        if (g == limit) {
+            cutOff = true;
+            return -1;
+        }
+        // Only make a GridState to report if anything is listening.
+        if (getListener() != null) {
+            GridState state = new GridState(board, blankIndex, goal.getSize());
+            state.setDepth(g);
+            this.expand(state);
+        } else {
+            this.expanded(g);
+        }
+        if (this.limitReached()) {
+            return -1;
+        }
+        // The path held is the frontier of a depth first search.
+        this.frontierSize(g + 1);
+        if (g == pathBoards.length) {
+            long[] longerBoards = new long[pathBoards.length * 2];
+            System.arraycopy(pathBoards, 0, longerBoards, 0, g);
+            pathBoards = longerBoards;
+            int[] longerBlanks = new int[pathBlanks.length * 2];
+            System.arraycopy(pathBlanks, 0, longerBlanks, 0, g);
+            pathBlanks = longerBlanks;
+        }
+        pathBoards[g] = board;
+        pathBlanks[g] = blankIndex;
+
+        int zeroIndex = blankIndex;
+        for (int target : neighbours[zeroIndex]) {
+            // Don't undo the move that was just made.
+            if (target == previousBlank) {
+                this.pruned();
+                continue;
+            }
+            this.generated();
+            // Make the move..
+            board = GridState.moveBlank(board, zeroIndex, target);
+            blankIndex = target;
+            if (onPath(g + 1)) {
+                this.pruned();
+            } else {
+                int found = search(g + 1, zeroIndex);
+                if (found >= 0) {
+                    return found;
+                }
+            }
+            // ..and unmake it.
+            board = GridState.moveBlank(board, target, zeroIndex);
+            blankIndex = zeroIndex;
+            if (this.isStopped()) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * <p>
+     * Check if the current board, at the given depth, is already on the path
+     * to it. Only boards an even number of moves back, and at least four,
+     * can be the same.
+     * </p>
+     */
+    private boolean onPath(int depth) {
+        for (int i = depth - 4; i >= 0; i -= 2) {
+            if (pathBoards[i] == board) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Replay the blank positions of the path found from the start state, so
+     * the goal can be printed with its parent like the other searches.
+     * </p>
+     *
+     * @param depth
+     *            depth of the goal
+     * @return the goal GridState, linked back through its parents
+     */
+    private GridState buildPath(int depth) {
+        GridState current = parent;
+        current.setDepth(0);
+        for (int g = 1; g <= depth; g++) {
+            int target = g < depth ? pathBlanks[g] : blankIndex;
+            GridState child = createChild(current, pathBlanks[g - 1], target
+                    - pathBlanks[g - 1]);
+            child.setParent(current);
+            current = child;
+        }
+        return current;
+    }
+
+    /**
+     * <p>
+     * Iterative deepening DFS makes and unmakes its moves in place in
+     * search(), rather than making child GridStates, so this is never used.
+     * </p>
+     */
+    public void movement(int zeroIndex, int direction, GridState current) {
+    }
+
+    /**
+     * <p>
+     * Iterative deepening DFS has no open list, the only states it holds
+     * are on the current path, so the nearest thing is the board being
+     * searched from.
+     * </p>
+     *
+     * @return the board currently being searched from
+     */
+    public GridState getFirstInOpen() {
+        return new GridState(board, blankIndex, parent.getSize());
+    }
+
+    /**
+     * <p>
+     * Iterative deepening DFS has no open list.
+     * </p>
+     */
+    public void addToOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * Iterative deepening DFS has no open list.
+     * </p>
+     */
+    public boolean inOpenList(GridState state) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * Iterative deepening DFS has no open list.
+     * </p>
+     */
+    public void removeFromOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * Iterative deepening DFS has no closed list.
+     * </p>
+     */
+    public void addToClosed(GridState state) {
+    }
+
+    /**
+     * <p>
+     * Iterative deepening DFS has no closed list, only the current path.
+     * </p>
+     */
+    public boolean inClosedList(GridState state) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * Iterative deepening DFS has no closed list.
+     * </p>
+     */
+    public void removeFromClosed(GridState state) {
+    }
+
+    /**
+     * <p>Inform the user of the search method.
+     * </p>
+     */
+    @Override
+    public void printType() {
+        System.out.println("Iterative Deepening DFS Method");
+    }
+}
@@ -9,6 +9,13 @@ package uk.co.jameseuesden.eightpuzzle;
  *
  */
 public class ManhattanHeuristic implements Heuristic{
+    private long goalBoard = -1L;
+    // A 2x3 and a 3x2 goal can pack to the same board, so the size is kept too.
+    private GridSize goalSize;
+    private int length;
+    // distance[tile * length + index] is the moves from index to tile's goal
+    private int[] distance;
+
     /**
      * <p>
      * Calculate the heuristic cost of any given state. Manhattan Distance.
@@ -19,53 +26,67 @@ public class ManhattanHeuristic implements Heuristic{
      * @return the heuristic cost
      */
     public int getHeuristicCost(GridState child, GridState goal) {
-        char[][] gridArray = new char[3][3];
-        char[][] goalArray = new char[3][3];
-        int index = 0;
+        prepare(goal);
         int hCost = 0;
 
         /*
          * To calculate the heuristic cost, in this case the Manhattan distance,
          * we need to know the total of how many 'moves' away from the goal
-         * state each individual tile is. To do this, we can put the state into
-         * a 2D char array, and calculate the amount of moves needed to be taken
-         * by using the x and y co-ordinates of each tile's current and goal
-         * state. The x and y index of each GridState can be added together and
-         * then subtracted from the goal state's added x and y (and made into a
-         * positive result), in order to determine how many 'moves' this tile
-         * must make.
+         * state each individual tile is. The distance of every tile from every
+         * index to its goal position is already in the table, so we only need
+         * to add up the entries for where each tile is now. The blank tile is
+         * not counted, as it is not a tile that has to be moved into place.
          */
-
-        // Put the current and goal state into 2D arrays
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                gridArray[i][j] = child.getElements().charAt(index);
-                goalArray[i][j] = goal.getElements().charAt(index);
-                index++;
+        for (int i = 0; i < length; i++) {
+            int tile = child.getTile(i);
+            if (tile != 0) {
+                hCost += distance[tile * length + i];
             }
         }
+        return hCost;
+    }
 
-        // For every tile in the grid
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                // Get the tile
-                char currentChar = gridArray[i][j];
+    /**
+     * <p>
+     * Only the moved tile changes its distance from the goal, so the
+     * difference is its distance from the new index less its distance
+     * from the old one.
+     * </p>
+     */
+    public int getHeuristicDelta(long board, int fromIndex, int toIndex,
+            GridState goal) {
+        prepare(goal);
+        int tile = (int) ((board >>> (fromIndex << 2)) & 0xF);
+        return distance[tile * length + toIndex]
+                - distance[tile * length + fromIndex];
+    }
 
-                // for each tile in the goal state
-                for (int k = 0; k < 3; k++) {
-                    for (int n = 0; n < 3; n++) {
-                        /*
-                         * Compare the goal to the current state of the tile if
-                         * the tile matches, calculate the number of moves it
-                         * would take to reach it
-                         */
-                        if (goalArray[k][n] == currentChar) {
-                            hCost = hCost + (Math.abs(i - k) + Math.abs(j - n));
-                        }
-                    }
-                }
+    /**
+     * <p>
+     * Build the table of distances for the given goal state, unless it
+     * was already built for it. Every tile's goal row and column are
+     * worked out once here, rather than for every state evaluated.
+     * </p>
+     * 
+     * @param goal
+     *            the goal state
+     */
+    private void prepare(GridState goal) {
+        if (goal.getBoard() == goalBoard
+                && goal.getSize().equals(goalSize)) {
+            return;
+        }
+        length = goal.getLength();
+        int width = goal.getSize().getCols();
+        distance = new int[length * length];
+        for (int k = 0; k < length; k++) {
+            int tile = goal.getTile(k);
+            for (int i = 0; i < length; i++) {
+                distance[tile * length + i] = Math.abs(i / width - k / width)
+                        + Math.abs(i % width - k % width);
             }
         }
-        return hCost;
+        goalBoard = goal.getBoard();
+        goalSize = goal.getSize();
     }
 }
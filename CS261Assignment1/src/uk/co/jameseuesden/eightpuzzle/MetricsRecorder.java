@@ -0,0 +1,211 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * Keeps the metrics of a search in atomic counters, so they can be read
+ * while it runs and shared by the threads of a parallel search, and shows
+ * them as an MBean. Every search started resets the counters, so they are
+ * always those of the latest search; give each search that runs at the
+ * same time a recorder of its own.
+ * </p>
+ * <p>
+ * Each search finished is also sent as a JMX notification of type
+ * {@value #SEARCH_FINISHED}, carrying its SolveResult as text, so a JMX
+ * client can keep a record of every solve.
+ * </p>
+ */
+public class MetricsRecorder extends NotificationBroadcasterSupport implements
+        SearchMetrics, MetricsRecorderMBean {
+    public static final String SEARCH_FINISHED = "eightpuzzle.search.finished";
+    // Depths are counted one by one up to this, deeper ones all together.
+    private static final int MAX_DEPTH = 256;
+
+    private volatile String search = "";
+    private AtomicLong expanded = new AtomicLong();
+    private AtomicLong generated = new AtomicLong();
+    private AtomicLong pruned = new AtomicLong();
+    private AtomicLong reopened = new AtomicLong();
+    private AtomicLong evaluations = new AtomicLong();
+    private AtomicLongArray expandedByDepth = new AtomicLongArray(MAX_DEPTH);
+    private volatile int openSize;
+    private volatile int closedSize;
+    private volatile long startTime = System.nanoTime();
+    private volatile long endTime = -1;
+    private AtomicLong finished = new AtomicLong();
+    private volatile String lastResult = "";
+
+    /**
+     * <p>
+     * Make this recorder visible over JMX under the given name.
+     * </p>
+     *
+     * @param name
+     *            name to tell this recorder apart from any others
+     * @return True if it was registered
+     */
+    public boolean register(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("uk.co.jameseuesden.eightpuzzle:type=SearchMetrics,name="
+                            + ObjectName.quote(name)));
+            return true;
+        } catch (JMException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public void searchStarted(String search) {
+        reset();
+        this.search = search;
+    }
+
+    public void statesExpanded(int depth, int count) {
+        expanded.addAndGet(count);
+        expandedByDepth.addAndGet(Math.min(Math.max(depth, 0), MAX_DEPTH - 1),
+                count);
+    }
+
+    public void statesGenerated(int count) {
+        generated.addAndGet(count);
+    }
+
+    public void duplicatePruned() {
+        pruned.incrementAndGet();
+    }
+
+    public void stateReopened() {
+        reopened.incrementAndGet();
+    }
+
+    public void heuristicEvaluated() {
+        evaluations.incrementAndGet();
+    }
+
+    public void listSizes(int open, int closed) {
+        openSize = open;
+        closedSize = closed;
+    }
+
+    public void searchFinished(SolveResult result) {
+        endTime = System.nanoTime();
+        lastResult = result.toString();
+        long sequence = finished.incrementAndGet();
+        sendNotification(new Notification(SEARCH_FINISHED, this, sequence,
+                search + " " + lastResult));
+    }
+
+    public String getSearch() {
+        return search;
+    }
+
+    public long getStatesExpanded() {
+        return expanded.get();
+    }
+
+    public long getStatesGenerated() {
+        return generated.get();
+    }
+
+    public long getDuplicatesPruned() {
+        return pruned.get();
+    }
+
+    public long getStatesReopened() {
+        return reopened.get();
+    }
+
+    public long getHeuristicEvaluations() {
+        return evaluations.get();
+    }
+
+    public int getOpenSize() {
+        return openSize;
+    }
+
+    public int getClosedSize() {
+        return closedSize;
+    }
+
+    /**
+     * <p>
+     * States expanded a second, over the search so far or the whole of the
+     * last search once it has finished.
+     * </p>
+     */
+    public double getNodesPerSecond() {
+        long end = endTime < 0 ? System.nanoTime() : endTime;
+        long elapsed = Math.max(1, end - startTime);
+        return expanded.get() * 1e9 / elapsed;
+    }
+
+    /**
+     * <p>
+     * States expanded at each depth, up to the deepest reached.
+     * </p>
+     */
+    public long[] getExpandedByDepth() {
+        int deepest = MAX_DEPTH - 1;
+        while (deepest > 0 && expandedByDepth.get(deepest) == 0) {
+            deepest--;
+        }
+        long[] counts = new long[deepest + 1];
+        for (int i = 0; i <= deepest; i++) {
+            counts[i] = expandedByDepth.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * <p>
+     * The effective branching factor at each depth: states expanded at the
+     * next depth for every state expanded at this one.
+     * </p>
+     */
+    public double[] getBranchingFactors() {
+        long[] counts = getExpandedByDepth();
+        double[] factors = new double[Math.max(0, counts.length - 1)];
+        for (int i = 0; i < factors.length; i++) {
+            factors[i] = counts[i] == 0 ? 0 : (double) counts[i + 1]
+                    / counts[i];
+        }
+        return factors;
+    }
+
+    public long getSearchesFinished() {
+        return finished.get();
+    }
+
+    public String getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * <p>
+     * Set every counter of the search back to zero and restart the clock.
+     * </p>
+     */
+    public void reset() {
+        expanded.set(0);
+        generated.set(0);
+        pruned.set(0);
+        reopened.set(0);
+        evaluations.set(0);
+        for (int i = 0; i < MAX_DEPTH; i++) {
+            expandedByDepth.set(i, 0);
+        }
+        openSize = 0;
+        closedSize = 0;
+        startTime = System.nanoTime();
+        endTime = -1;
+    }
+}
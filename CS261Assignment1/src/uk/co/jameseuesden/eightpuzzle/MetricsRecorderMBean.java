@@ -0,0 +1,38 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * What a MetricsRecorder shows over JMX, such as in JConsole or Mission
+ * Control.
+ * </p>
+ */
+public interface MetricsRecorderMBean {
+
+    public abstract String getSearch();
+
+    public abstract long getStatesExpanded();
+
+    public abstract long getStatesGenerated();
+
+    public abstract long getDuplicatesPruned();
+
+    public abstract long getStatesReopened();
+
+    public abstract long getHeuristicEvaluations();
+
+    public abstract int getOpenSize();
+
+    public abstract int getClosedSize();
+
+    public abstract double getNodesPerSecond();
+
+    public abstract long[] getExpandedByDepth();
+
+    public abstract double[] getBranchingFactors();
+
+    public abstract long getSearchesFinished();
+
+    public abstract String getLastResult();
+
+    public abstract void reset();
+}
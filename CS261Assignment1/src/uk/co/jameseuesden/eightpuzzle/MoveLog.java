@@ -0,0 +1,158 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * The moves that made each state of a search, kept to the side so that
+ * states do not need to point to their parents. Each state is given an id
+ * when it is made, and the log keeps the id of its parent and the move of
+ * the blank that made it, as a 2 bit code packed four to a byte. Once the
+ * goal is found, its moves are read back through the parent ids.
+ * </p>
+ * <p>
+ * That is 4 bytes and 2 bits a state, and as no state refers to another,
+ * every state the search has finished with can be collected rather than
+ * being kept alive by the children below it.
+ * </p>
+ */
+public class MoveLog {
+    public static final int ROOT = -1;
+    // The move codes, by the letter they stand for.
+    private static final String LETTERS = "UDLR";
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private int[] parents;
+    private byte[] moves;
+    private int size = 0;
+
+    /**
+     * <p>
+     * New empty log, grown as states are added.
+     * </p>
+     */
+    public MoveLog() {
+        parents = new int[DEFAULT_CAPACITY];
+        moves = new byte[DEFAULT_CAPACITY / 4];
+    }
+
+    /**
+     * <p>
+     * Log the move that made a new state.
+     * </p>
+     *
+     * @param parentId
+     *            id of the state the move was made from, or ROOT
+     * @param move
+     *            code of the move of the blank
+     * @return id of the new state
+     */
+    public int add(int parentId, int move) {
+        if (size == parents.length) {
+            parents = Arrays.copyOf(parents, size * 2);
+            moves = Arrays.copyOf(moves, size / 2);
+        }
+        set(size, parentId, move);
+        return size++;
+    }
+
+    /**
+     * <p>
+     * Change the move that made a state, when a better one is found.
+     * </p>
+     *
+     * @param id
+     *            id of the state
+     * @param parentId
+     *            id of the state the move was made from
+     * @param move
+     *            code of the move of the blank
+     */
+    public void set(int id, int parentId, int move) {
+        parents[id] = parentId;
+        int shift = (id & 3) << 1;
+        moves[id >>> 2] = (byte) ((moves[id >>> 2] & ~(3 << shift)) | (move << shift));
+    }
+
+    public int getParent(int id) {
+        return parents[id];
+    }
+
+    public int getMove(int id) {
+        return (moves[id >>> 2] >>> ((id & 3) << 1)) & 3;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * <p>
+     * Forget every state logged, keeping the current capacity.
+     * </p>
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * <p>
+     * Read the moves from the root down to a state.
+     * </p>
+     *
+     * @param id
+     *            id of the last state
+     * @return one of U, D, L or R per move
+     */
+    public String movesTo(int id) {
+        StringBuilder letters = new StringBuilder();
+        for (int at = id; at != ROOT && parents[at] != ROOT; at = parents[at]) {
+            letters.append(LETTERS.charAt(getMove(at)));
+        }
+        return letters.reverse().toString();
+    }
+
+    /**
+     * <p>
+     * The code of a move of the blank between neighbouring indexes.
+     * </p>
+     *
+     * @param direction
+     *            change in the index of the blank
+     * @param cols
+     *            number of columns in the grid
+     * @return code of the move
+     */
+    public static int code(int direction, int cols) {
+        if (direction == -cols) {
+            return 0;
+        } else if (direction == cols) {
+            return 1;
+        }
+        return direction < 0 ? 2 : 3;
+    }
+
+    /**
+     * <p>
+     * The change in the index of the blank for a move letter.
+     * </p>
+     *
+     * @param letter
+     *            one of U, D, L or R
+     * @param cols
+     *            number of columns in the grid
+     * @return change in the index of the blank
+     */
+    public static int direction(char letter, int cols) {
+        switch (letter) {
+        case 'U':
+            return -cols;
+        case 'D':
+            return cols;
+        case 'L':
+            return -1;
+        default:
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * Indexed binary heap of GridStates for the A* frontier. Every state keeps
+ * its own position in the heap, and the states are also held in a
+ * StateTable by board, so finding a state, removing it and lowering its
+ * cost are O(1), O(log n) and O(log n) rather than the linear scans of a
+ * PriorityQueue.
+ * </p>
+ * <p>
+ * States are ordered by f = g + h. Many states share the lowest f, most of
+ * all at the last f before the goal, and which of them is taken first is
+ * set by the TieBreak. Taking the deepest first, and the newest of those,
+ * heads straight down towards the goal rather than expanding the whole
+ * layer across.
+ * </p>
+ * <p>
+ * For weighted A* the heuristic cost can be given a weight w, ordering by
+ * g + w.h instead.
+ * </p>
+ */
+public class OpenList {
+
+    /**
+     * <p>
+     * How states of the same f are ordered.
+     * </p>
+     */
+    public enum TieBreak {
+        /** Whichever the heap happens to hold higher. */
+        NONE,
+        /** Higher g, and so lower h, first. */
+        HIGH_G,
+        /** Higher g first, then the most recently added. */
+        HIGH_G_LIFO
+    }
+
+    private GridState[] heap;
+    // When each state in the heap was added, for LIFO ties.
+    private long[] added;
+    private long count = 0;
+    private StateTable index;
+    private int size = 0;
+    private TieBreak tieBreak;
+    private double weight = 1;
+
+    /**
+     * <p>
+     * New empty open list, grown as states are added, taking the deepest
+     * and then the newest of states with the same f first.
+     * </p>
+     */
+    public OpenList() {
+        this(TieBreak.HIGH_G_LIFO);
+    }
+
+    /**
+     * <p>
+     * New empty open list, grown as states are added.
+     * </p>
+     *
+     * @param tieBreak
+     *            how states of the same f are ordered
+     */
+    public OpenList(TieBreak tieBreak) {
+        heap = new GridState[1024];
+        added = new long[1024];
+        index = new StateTable();
+        this.tieBreak = tieBreak;
+    }
+
+    public TieBreak getTieBreak() {
+        return tieBreak;
+    }
+
+    /**
+     * <p>
+     * Set the weight on the heuristic cost of every state, and reorder the
+     * states already held by it.
+     * </p>
+     *
+     * @param weight
+     *            weight of at least 1
+     */
+    public void setWeight(double weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("Weight must be at least 1: "
+                    + weight);
+        }
+        this.weight = weight;
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * <p>
+     * The key a state is ordered by, g + w.h.
+     * </p>
+     *
+     * @param state
+     *            the GridState
+     * @return its weighted f cost
+     */
+    public double getKey(GridState state) {
+        return state.getCost() + weight * state.getHeuristicCost();
+    }
+
+    /**
+     * <p>
+     * The lowest unweighted f = g + h of any state held, found by looking
+     * at every one of them.
+     * </p>
+     *
+     * @return lowest f, or Integer.MAX_VALUE if the open list is empty
+     */
+    public int getMinCost() {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, heap[i].getCost() + heap[i].getHeuristicCost());
+        }
+        return min;
+    }
+
+    /**
+     * <p>
+     * Add a GridState to the heap.
+     * </p>
+     *
+     * @param state
+     *            the GridState to add
+     */
+    public void add(GridState state) {
+        if (size == heap.length) {
+            GridState[] bigger = new GridState[heap.length * 2];
+            System.arraycopy(heap, 0, bigger, 0, size);
+            heap = bigger;
+            long[] biggerAdded = new long[bigger.length];
+            System.arraycopy(added, 0, biggerAdded, 0, size);
+            added = biggerAdded;
+        }
+        heap[size] = state;
+        added[size] = count++;
+        state.setHeapIndex(size);
+        size++;
+        siftUp(size - 1);
+        index.put(state);
+    }
+
+    /**
+     * <p>
+     * Get the least costing GridState without removing it.
+     * </p>
+     *
+     * @return the head of the heap, or null if it is empty
+     */
+    public GridState peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * <p>
+     * Remove and return the least costing GridState.
+     * </p>
+     *
+     * @return the head of the heap, or null if it is empty
+     */
+    public GridState poll() {
+        GridState head = peek();
+        if (head != null) {
+            remove(head);
+        }
+        return head;
+    }
+
+    /**
+     * <p>
+     * Find the GridState held for the given board.
+     * </p>
+     *
+     * @param board
+     *            the packed board to look for
+     * @return the GridState in the open list, or null if there is none
+     */
+    public GridState get(long board) {
+        return index.get(board);
+    }
+
+    /**
+     * <p>
+     * Check if a state with the same board is in the open list.
+     * </p>
+     *
+     * @param state
+     *            the GridState to check for
+     * @return True if the open list holds a state with the same board
+     */
+    public boolean contains(GridState state) {
+        return index.contains(state);
+    }
+
+    /**
+     * <p>
+     * Remove the GridState held for the same board as the given state.
+     * </p>
+     *
+     * @param state
+     *            the GridState to remove
+     * @return True if a state was removed
+     */
+    public boolean remove(GridState state) {
+        GridState held = index.get(state.getBoard());
+        if (held == null) {
+            return false;
+        }
+        index.remove(held);
+        int position = held.getHeapIndex();
+        held.setHeapIndex(-1);
+        size--;
+        if (position != size) {
+            // Fill the hole with the last state and restore the heap order.
+            heap[position] = heap[size];
+            added[position] = added[size];
+            heap[position].setHeapIndex(position);
+            heap[size] = null;
+            siftDown(position);
+            siftUp(position);
+        } else {
+            heap[size] = null;
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Restore the heap order after the cost of a state already in the open
+     * list has been lowered.
+     * </p>
+     *
+     * @param state
+     *            the GridState whose cost went down
+     */
+    public void decreaseKey(GridState state) {
+        siftUp(state.getHeapIndex());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * <p>
+     * Remove every state from the open list.
+     * </p>
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].setHeapIndex(-1);
+            heap[i] = null;
+        }
+        size = 0;
+        count = 0;
+        index.clear();
+    }
+
+    /**
+     * <p>
+     * Check if one state should be taken before another: by f, or by g + w.h
+     * with a weight, then as the TieBreak says.
+     * </p>
+     */
+    private boolean before(GridState state, long stateAdded, GridState other,
+            long otherAdded) {
+        int order;
+        if (weight == 1) {
+            order = state.compareTo(other);
+        } else {
+            order = Double.compare(getKey(state), getKey(other));
+        }
+        if (order != 0 || tieBreak == TieBreak.NONE) {
+            return order < 0;
+        }
+        if (state.getCost() != other.getCost()) {
+            return state.getCost() > other.getCost();
+        }
+        return tieBreak == TieBreak.HIGH_G_LIFO && stateAdded > otherAdded;
+    }
+
+    private void siftUp(int position) {
+        GridState state = heap[position];
+        long stateAdded = added[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!before(state, stateAdded, heap[parent], added[parent])) {
+                break;
+            }
+            heap[position] = heap[parent];
+            added[position] = added[parent];
+            heap[position].setHeapIndex(position);
+            position = parent;
+        }
+        heap[position] = state;
+        added[position] = stateAdded;
+        state.setHeapIndex(position);
+    }
+
+    private void siftDown(int position) {
+        GridState state = heap[position];
+        long stateAdded = added[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = (position << 1) + 1;
+            int right = child + 1;
+            if (right < size
+                    && before(heap[right], added[right], heap[child],
+                            added[child])) {
+                child = right;
+            }
+            if (!before(heap[child], added[child], state, stateAdded)) {
+                break;
+            }
+            heap[position] = heap[child];
+            added[position] = added[child];
+            heap[position].setHeapIndex(position);
+            position = child;
+        }
+        heap[position] = state;
+        added[position] = stateAdded;
+        state.setHeapIndex(position);
+    }
+}
@@ -0,0 +1,474 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Solve the puzzle using Hash Distributed A* (HDA*) over several threads.
+ * Every board belongs to one worker, picked by the hash of the board, and
+ * only that worker ever keeps it in its own open list and closed table, so
+ * the workers never lock anything to search. A child made by one worker is
+ * sent to the worker it belongs to through that worker's lock-free inbox.
+ * </p>
+ * <p>
+ * Once a path to the goal is found it becomes the incumbent, and every
+ * worker throws away any state whose path cost plus heuristic cost is no
+ * better. The search is over when no worker has anything left in its open
+ * list and no child is still on its way to a worker. As the heuristic never
+ * overestimates, the incumbent is then the shortest path.
+ * </p>
+ * <p>
+ * To tell when that is, a single count is kept of the children sent but not
+ * yet taken in plus the workers with states left to expand. A worker counts
+ * itself in before it takes in the children that gave it work, and only
+ * counts itself out after sending on every child it made, so the count can
+ * only reach zero once all the work is done.
+ * </p>
+ */
+public class ParallelAStar extends GenericType {
+    private GridState parent;
+    private int mode;
+    private int threads;
+    private String modeWords;
+    private OpenList.TieBreak tieBreak = OpenList.TieBreak.HIGH_G_LIFO;
+
+    private Worker[] workers;
+    // Children sent but not yet taken in, plus the workers with work to do.
+    private AtomicLong work;
+    // States expanded by every worker, counted in now and then for the limits.
+    private AtomicLong expandedTotal;
+    // Cost of the best path to the goal so far, and its last state.
+    private volatile int bestCost;
+    private GridState best;
+
+    /**
+     * <p>
+     * New parallel A* Search using one worker per processor.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     * @param mode
+     *            1 for Manhattan Distance, 2 for Tiles out of place, 3 for
+     *            Pattern Database
+     */
+    public ParallelAStar(GridState input, GridState goal, int mode) {
+        this(input, goal, mode, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * <p>
+     * New parallel A* Search using the given number of workers.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     * @param mode
+     *            1 for Manhattan Distance, 2 for Tiles out of place, 3 for
+     *            Pattern Database
+     * @param threads
+     *            number of worker threads
+     */
+    public ParallelAStar(GridState input, GridState goal, int mode,
+            int threads) {
+        parent = input;
+        this.goal = goal;
+        this.mode = mode;
+        this.threads = Math.max(1, threads);
+        newHeuristic();
+    }
+
+    /**
+     * <p>Set how states of the same f cost are ordered in each
+     * worker's open list.</p>
+     * @param tieBreak
+     */
+    public void setTieBreak(OpenList.TieBreak tieBreak) {
+        this.tieBreak = tieBreak;
+    }
+
+    /**
+     * <p>Make a heuristic for Manhattan, Tile or Pattern Database
+     * based on the mode, so that each worker can have its own.
+     * Updates a String to be used in informing the user of which
+     * heuristic is under use. <br />
+     * Default is Manhattan Distance.
+     * </p>
+     * @return a new heuristic
+     */
+    private Heuristic newHeuristic() {
+        switch (mode) {
+        case (1):
+            modeWords = "Manhattan Distance";
+            return new ManhattanHeuristic();
+        case (2):
+            modeWords = "Tiles out of place";
+            return new TileHeuristic();
+        case (3):
+            modeWords = "Pattern Database";
+            return new PatternDatabaseHeuristic();
+        default:
+            modeWords = "Manhattan Distance";
+            return new ManhattanHeuristic();
+        }
+    }
+
+    /**
+     * <p>
+     * Finds an optimal path from the start state to the goal state, with
+     * every worker searching on its own thread.
+     * </p>
+     */
+    public SolveResult findPath() {
+        startSearch();
+        /*
+         * The start state's heuristic cost is worked out here first, so any
+         * tables the heuristic needs are made once before the workers load
+         * them.
+         */
+        GridState start = new GridState(parent.getBoard(),
+                parent.getBlankIndex(), parent.getSize());
+        start.setCost(0);
+        start.setDepth(0);
+        start.setHeuristicCost(newHeuristic().getHeuristicCost(start, goal));
+        this.evaluated();
+
+        bestCost = Integer.MAX_VALUE;
+        best = null;
+        work = new AtomicLong();
+        expandedTotal = new AtomicLong();
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(newHeuristic());
+        }
+        send(start);
+
+        Thread[] running = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            running[i] = new Thread(workers[i], "astar-worker-" + i);
+            running[i].start();
+        }
+        for (Thread thread : running) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // The counts are the totals over every worker.
+        for (Worker worker : workers) {
+            expandedStates += worker.expanded;
+            generatedStates += worker.generated;
+            peakFrontier += worker.peakOpen;
+        }
+        // A path found before a limit stopped the search may not be the shortest.
+        return finishSearch(this.isStopped() ? null : best);
+    }
+
+    /**
+     * <p>
+     * Send a state to the worker it belongs to, counting it as work before
+     * it can be seen by that worker.
+     * </p>
+     *
+     * @param state
+     *            the state to send
+     */
+    private void send(GridState state) {
+        work.incrementAndGet();
+        workers[owner(state.getBoard())].inbox.add(state);
+    }
+
+    /**
+     * <p>
+     * The worker a board belongs to.
+     * </p>
+     */
+    private int owner(long board) {
+        return (StateTable.hash(board) & 0x7FFFFFFF) % workers.length;
+    }
+
+    /**
+     * <p>
+     * Keep a path to the goal if it is shorter than the incumbent.
+     * </p>
+     *
+     * @param found
+     *            the goal state, linked back through its parents
+     */
+    private synchronized void foundGoal(GridState found) {
+        if (found.getCost() < bestCost) {
+            best = found;
+            bestCost = found.getCost();
+        }
+    }
+
+    /**
+     * <p>
+     * One worker: its own open list and closed table of the boards that
+     * belong to it, and an inbox of children sent to it.
+     * </p>
+     */
+    private class Worker implements Runnable {
+        private Queue<GridState> inbox = new ConcurrentLinkedQueue<GridState>();
+        private OpenList open = new OpenList(tieBreak);
+        // Every board of this worker reached so far, open or closed.
+        private StateTable seen = new StateTable();
+        private Heuristic heuristic;
+        // Shared by every worker, so it must be thread safe.
+        private SearchMetrics metrics = getMetrics();
+        private boolean active = false;
+        private int expanded = 0;
+        private int generated = 0;
+        private int peakOpen = 0;
+        // States in this worker's lists, as last counted for the limits.
+        private volatile int held = 0;
+
+        Worker(Heuristic heuristic) {
+            this.heuristic = heuristic;
+        }
+
+        public void run() {
+            while (true) {
+                if (isStopped()) {
+                    return;
+                }
+                int received = receive();
+                if (received > 0) {
+                    // Count in before counting the children as taken in.
+                    if (!active && open.size() != 0) {
+                        active = true;
+                        work.incrementAndGet();
+                    }
+                    work.addAndGet(-received);
+                }
+                if (open.size() != 0) {
+                    expand(open.poll());
+                } else if (active) {
+                    // Every child made has been sent, so count out.
+                    active = false;
+                    work.decrementAndGet();
+                } else if (work.get() == 0) {
+                    return;
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+
+        /**
+         * <p>
+         * Take in every child waiting in the inbox.
+         * </p>
+         *
+         * @return the number of children taken in
+         */
+        private int receive() {
+            int received = 0;
+            GridState child;
+            while ((child = inbox.poll()) != null) {
+                received++;
+                add(child);
+            }
+            return received;
+        }
+
+        /**
+         * <p>
+         * Add a child to the open list, unless it cannot beat the incumbent
+         * or the board has already been reached at least as cheaply. A
+         * cheaper path to a board already reached updates it in the open
+         * list, or re-opens it if it was closed.
+         * </p>
+         */
+        private void add(GridState child) {
+            if (child.getCost() + child.getHeuristicCost() >= bestCost) {
+                return;
+            }
+            GridState known = seen.get(child.getBoard());
+            if (known != null) {
+                if (child.getCost() >= known.getCost()) {
+                    if (metrics != null) {
+                        metrics.duplicatePruned();
+                    }
+                    return;
+                }
+                if (metrics != null) {
+                    metrics.stateReopened();
+                }
+                if (open.contains(known)) {
+                    known.setCost(child.getCost());
+                    known.setParent(child.getParent());
+                    open.decreaseKey(known);
+                    return;
+                }
+                seen.remove(known);
+            }
+            seen.put(child);
+            open.add(child);
+            if (open.size() > peakOpen) {
+                peakOpen = open.size();
+            }
+        }
+
+        /**
+         * <p>
+         * Check every worker's counts against the limits, stopping them all
+         * if one has been reached.
+         * </p>
+         */
+        private void checkLimits() {
+            SearchLimits limits = getLimits();
+            if (limits == null) {
+                return;
+            }
+            held = seen.size();
+            long total = expandedTotal.addAndGet(0x100);
+            long allHeld = 0;
+            for (Worker worker : workers) {
+                allHeld += worker.held;
+            }
+            SolveResult.Status status = limits.check(total, allHeld,
+                    getStartTime(), true);
+            if (status != null) {
+                stop(status);
+            }
+        }
+
+        /**
+         * <p>
+         * Expand a state, sending each of its children to the worker it
+         * belongs to. A child that is the goal is offered as the incumbent
+         * straight away rather than sent, so the other workers can start
+         * throwing away states that cannot beat it as soon as possible.
+         * </p>
+         */
+        private void expand(GridState current) {
+            if (current.getCost() + current.getHeuristicCost() >= bestCost) {
+                return;
+            }
+            // Only the start state can be the goal without being offered.
+            if (current.equals(goal)) {
+                foundGoal(current);
+                return;
+            }
+            expanded++;
+            if (metrics != null) {
+                metrics.statesExpanded(current.getDepth(), 1);
+                metrics.listSizes(open.size(), seen.size() - open.size());
+            }
+            if ((expanded & 0xFF) == 0) {
+                checkLimits();
+            }
+            int zeroIndex = current.getBlankIndex();
+            for (int target : current.getSize().getNeighbours(zeroIndex)) {
+                GridState child = createChild(current, zeroIndex, target
+                        - zeroIndex);
+                generated++;
+                child.setCost(current.getCost() + 1);
+                child.setParent(current);
+                child.setHeuristicCost(current.getHeuristicCost()
+                        + heuristic.getHeuristicDelta(current.getBoard(),
+                                target, zeroIndex, goal));
+                if (metrics != null) {
+                    metrics.statesGenerated(1);
+                    metrics.heuristicEvaluated();
+                }
+                if (child.equals(goal)) {
+                    foundGoal(child);
+                } else {
+                    send(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * The workers make their children in expand(), so this is never used.
+     * </p>
+     */
+    public void movement(int zeroIndex, int direction, GridState current) {
+    }
+
+    /**
+     * <p>
+     * Each worker has its own open list, so there is no one first state.
+     * </p>
+     *
+     * @return the start state
+     */
+    public GridState getFirstInOpen() {
+        return parent;
+    }
+
+    /**
+     * <p>
+     * Send a GridState to the worker it belongs to.
+     * </p>
+     *
+     * @param state
+     *            The GridState to be added
+     */
+    public void addToOpen(GridState state) {
+        send(state);
+    }
+
+    /**
+     * <p>
+     * The open lists belong to the workers.
+     * </p>
+     */
+    public boolean inOpenList(GridState state) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * The open lists belong to the workers.
+     * </p>
+     */
+    public void removeFromOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * The closed tables belong to the workers.
+     * </p>
+     */
+    public void addToClosed(GridState state) {
+    }
+
+    /**
+     * <p>
+     * The closed tables belong to the workers.
+     * </p>
+     */
+    public boolean inClosedList(GridState state) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * The closed tables belong to the workers.
+     * </p>
+     */
+    public void removeFromClosed(GridState state) {
+    }
+
+    /**
+     * <p>Inform user of Search method, and the heuristic used.</p>
+     */
+    @Override
+    public void printType() {
+        System.out.println("Parallel A* Search (" + threads + " threads) - "
+                + modeWords);
+    }
+}
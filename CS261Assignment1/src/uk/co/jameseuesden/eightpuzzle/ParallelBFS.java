@@ -0,0 +1,491 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Breadth First Search a whole level at a time, with each level split up
+ * and expanded in parallel by a fork/join pool. The levels are plain arrays
+ * of packed boards, and the array of one level is reused for the level after
+ * next, so a level costs no objects at all.
+ * </p>
+ * <p>
+ * Boards reached are marked in a bitmap indexed by their PermutationRank,
+ * set with compare and swap so that however many threads reach a board at
+ * once, exactly one of them queues it. That thread also writes where the
+ * blank was before the move into a byte per rank, which is all that is
+ * needed to walk back from the goal to the start afterwards.
+ * </p>
+ * <p>
+ * The bytes per rank take one byte for every permutation of the tiles, so
+ * only grids of up to {@link RankBitSet#MAX_CELLS} cells can be searched,
+ * and Solver's pbfs mode uses a plain BFS for bigger grids. The same search,
+ * run out from the goal without stopping, is used to fill in DistanceTables.
+ * </p>
+ * <p>
+ * Searches share one fork/join pool for each number of threads, and hand
+ * their bitmap and bytes per rank back when they finish, so the next search
+ * on the same size of grid clears and reuses them rather than making new
+ * ones. Both are only held while a search is running.
+ * </p>
+ */
+public class ParallelBFS extends GenericType {
+    // Fewest boards worth splitting off to another thread.
+    private static final int SPLIT = 1024;
+    private static final int UNMARKED = 0xFF;
+    // Most buffers kept for each size of grid, for searches running at once.
+    private static final int SPARE_BUFFERS = 4;
+
+    // Pools shared by every search, by number of threads.
+    private static final Map<Integer, ForkJoinPool> POOLS = new HashMap<Integer, ForkJoinPool>();
+    // Buffers of finished searches, by number of cells.
+    private static final Map<Integer, Deque<Buffers>> SPARES = new HashMap<Integer, Deque<Buffers>>();
+
+    private GridState parent;
+    private int threads;
+    private GridSize size;
+    private int cells;
+
+    private AtomicLongArray visited;
+    // Where the blank was before the move, plus one, or the level reached.
+    private byte[] marks;
+    private boolean markLevels;
+    private int level;
+
+    private long[] frontier;
+    private int frontierLength;
+    private long[] next;
+    private AtomicInteger nextLength;
+    private long target;
+    private volatile boolean found;
+    private AtomicLong generated;
+
+    /**
+     * <p>
+     * New parallel BFS using one thread per processor.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     */
+    public ParallelBFS(GridState input, GridState goal) {
+        this(input, goal, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * <p>
+     * New parallel BFS using the given number of threads.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     * @param threads
+     *            number of threads to expand each level with
+     */
+    public ParallelBFS(GridState input, GridState goal, int threads) {
+        parent = input;
+        this.goal = goal;
+        this.threads = Math.max(1, threads);
+        size = goal.getSize();
+        cells = size.getCells();
+        if (cells > RankBitSet.MAX_CELLS) {
+            throw new IllegalArgumentException("No parallel BFS for a "
+                    + size + " grid");
+        }
+    }
+
+    /**
+     * <p>
+     * Finds the path from the start state to the goal state, a level at a
+     * time.
+     * </p>
+     */
+    public SolveResult findPath() {
+        startSearch();
+        markLevels = false;
+        takeBuffers();
+        try {
+            run(parent.getBoard(), goal.getBoard());
+            return finishSearch(found ? buildPath() : null);
+        } finally {
+            releaseBuffers();
+        }
+    }
+
+    /**
+     * <p>
+     * Search out from the start state to every board it can reach, and
+     * return how many moves each is from it, by PermutationRank. Run from
+     * the goal, this is the goal's DistanceTable.
+     * </p>
+     *
+     * @return moves from the start to every board by rank, or 0xFF for the
+     *         boards that cannot be reached
+     */
+    public byte[] distances() {
+        startSearch();
+        markLevels = true;
+        takeBuffers();
+        byte[] distances = marks;
+        try {
+            // No board has every tile 15, so the search never stops early.
+            run(parent.getBoard(), -1L);
+        } finally {
+            // The bytes are the caller's now, so only the bitmap is reused.
+            marks = null;
+            releaseBuffers();
+        }
+        return distances;
+    }
+
+    /**
+     * <p>
+     * Get the pool shared by every search using the given number of
+     * threads. Its threads are daemons, so it is never shut down.
+     * </p>
+     *
+     * @param threads
+     *            number of threads in the pool
+     * @return the pool
+     */
+    private static synchronized ForkJoinPool poolFor(int threads) {
+        ForkJoinPool pool = POOLS.get(threads);
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+            POOLS.put(threads, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * <p>
+     * Take a finished search's bitmap and bytes per rank for this size of
+     * grid, or make them if there are none spare, and clear them.
+     * </p>
+     */
+    private void takeBuffers() {
+        Buffers buffers = null;
+        synchronized (SPARES) {
+            Deque<Buffers> spare = SPARES.get(cells);
+            if (spare != null) {
+                buffers = spare.poll();
+            }
+        }
+        int count = PermutationRank.count(cells);
+        if (buffers == null) {
+            visited = new AtomicLongArray((count + 63) >>> 6);
+        } else {
+            visited = buffers.visited;
+            for (int i = 0; i < visited.length(); i++) {
+                visited.set(i, 0L);
+            }
+        }
+        // Only ranks marked reached are read back, so old bytes can stay.
+        marks = buffers != null && buffers.marks != null ? buffers.marks
+                : new byte[count];
+        if (markLevels) {
+            Arrays.fill(marks, (byte) UNMARKED);
+        }
+    }
+
+    /**
+     * <p>
+     * Hand the bitmap and bytes per rank back for the next search, unless
+     * enough are spare already.
+     * </p>
+     */
+    private void releaseBuffers() {
+        synchronized (SPARES) {
+            Deque<Buffers> spare = SPARES.get(cells);
+            if (spare == null) {
+                spare = new ArrayDeque<Buffers>();
+                SPARES.put(cells, spare);
+            }
+            if (spare.size() < SPARE_BUFFERS) {
+                spare.push(new Buffers(visited, marks));
+            }
+        }
+        visited = null;
+        marks = null;
+    }
+
+    /**
+     * <p>
+     * Run the search from one board until the target is reached or there is
+     * nothing left to reach.
+     * </p>
+     */
+    private void run(long start, long targetBoard) {
+        int count = PermutationRank.count(cells);
+        generated = new AtomicLong();
+        target = targetBoard;
+        found = start == targetBoard;
+        level = 0;
+
+        int rank = PermutationRank.rank(start, cells);
+        visit(rank);
+        marks[rank] = 0;
+        frontier = new long[] { start };
+        frontierLength = 1;
+        long[] spare = null;
+
+        ForkJoinPool pool = poolFor(threads);
+        while (frontierLength > 0 && !found) {
+            expandedStates += frontierLength;
+            if (getMetrics() != null) {
+                getMetrics().statesExpanded(level, frontierLength);
+            }
+            this.frontierSize(frontierLength);
+            // A level is expanded between checks, so look at the clock.
+            if (!markLevels && this.limitReached(true)) {
+                break;
+            }
+            level++;
+            /*
+             * The puzzle's moves alternate the blank between two colours
+             * of cell, so a board's parent is always on the level before
+             * and each board has at most 3 children not yet reached.
+             */
+            int most = Math.min(frontierLength * 3 + 1, count);
+            next = spare != null && spare.length >= most ? spare
+                    : new long[most];
+            nextLength = new AtomicInteger();
+            pool.invoke(new ExpandTask(0, frontierLength));
+            spare = frontier;
+            frontier = next;
+            frontierLength = nextLength.get();
+        }
+        generatedStates = (int) generated.get();
+    }
+
+    /**
+     * <p>
+     * Mark a rank as reached.
+     * </p>
+     *
+     * @param rank
+     *            rank of the board
+     * @return True if this call marked it, false if it was already marked
+     */
+    private boolean visit(int rank) {
+        int word = rank >>> 6;
+        long bit = 1L << rank;
+        while (true) {
+            long bits = visited.get(word);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+            if (visited.compareAndSet(word, bits, bits | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * The bitmap and bytes per rank of a finished search, kept for the next.
+     * </p>
+     */
+    private static class Buffers {
+        private AtomicLongArray visited;
+        private byte[] marks;
+
+        Buffers(AtomicLongArray visited, byte[] marks) {
+            this.visited = visited;
+            this.marks = marks;
+        }
+    }
+
+    /**
+     * <p>
+     * Expands part of the level, splitting it in two until the parts are
+     * small enough to expand on one thread.
+     * </p>
+     */
+    private class ExpandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int from;
+        private int to;
+
+        ExpandTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandTask(from, middle), new ExpandTask(middle,
+                        to));
+                return;
+            }
+            // Children are kept here, then copied out in one go.
+            long[] children = new long[(to - from) * 3 + 1];
+            int length = 0;
+            int made = 0;
+            for (int i = from; i < to; i++) {
+                long board = frontier[i];
+                int blank = PermutationRank.blankIndex(board, cells);
+                for (int move : size.getNeighbours(blank)) {
+                    long child = GridState.moveBlank(board, blank, move);
+                    made++;
+                    int rank = PermutationRank.rank(child, cells);
+                    if (visit(rank)) {
+                        marks[rank] = (byte) (markLevels ? level : blank + 1);
+                        children[length++] = child;
+                        if (child == target) {
+                            found = true;
+                        }
+                    }
+                }
+            }
+            int at = nextLength.getAndAdd(length);
+            System.arraycopy(children, 0, next, at, length);
+            generated.addAndGet(made);
+            if (getMetrics() != null) {
+                getMetrics().statesGenerated(made);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Walk back from the goal to the start by undoing each move, then link
+     * up GridStates from the start to the goal.
+     * </p>
+     *
+     * @return the goal state, linked back through its parents
+     */
+    private GridState buildPath() {
+        long[] boards = new long[level + 1];
+        int[] blanks = new int[level + 1];
+        long board = goal.getBoard();
+        int blank = goal.getBlankIndex();
+        int depth = 0;
+        while (board != parent.getBoard()) {
+            boards[depth] = board;
+            blanks[depth] = blank;
+            depth++;
+            int before = marks[PermutationRank.rank(board, cells)] - 1;
+            board = GridState.moveBlank(board, blank, before);
+            blank = before;
+        }
+        GridState current = parent;
+        current.setDepth(0);
+        for (int i = depth - 1; i >= 0; i--) {
+            GridState child = new GridState(boards[i], blanks[i], size);
+            child.setParent(current);
+            current = child;
+        }
+        return current;
+    }
+
+    /**
+     * <p>
+     * Each level is expanded in run(), so this is never used.
+     * </p>
+     */
+    public void movement(int zeroIndex, int direction, GridState current) {
+    }
+
+    /**
+     * <p>
+     * Get the first board of the level being expanded.
+     * </p>
+     *
+     * @return the first state of the frontier, or null if it is empty
+     */
+    public GridState getFirstInOpen() {
+        if (frontier == null || frontierLength == 0) {
+            return null;
+        }
+        long board = frontier[0];
+        return new GridState(board, PermutationRank.blankIndex(board, cells),
+                size);
+    }
+
+    /**
+     * <p>
+     * The levels are only ever filled by the search itself.
+     * </p>
+     */
+    public void addToOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * Levels are not searched, only the bitmap of boards reached.
+     * </p>
+     */
+    public boolean inOpenList(GridState state) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * Boards are never taken back out of a level.
+     * </p>
+     */
+    public void removeFromOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * Mark a GridState as reached.
+     * </p>
+     *
+     * @param state
+     *            The GridState to mark
+     */
+    public void addToClosed(GridState state) {
+        if (visited != null) {
+            visit(PermutationRank.rank(state.getBoard(), cells));
+        }
+    }
+
+    /**
+     * <p>
+     * Check if a GridState has been reached. The bitmap is handed back when
+     * the search ends, so only a running search has reached anything.
+     * </p>
+     *
+     * @param state
+     *            The GridState to check for
+     * @return True if it has been reached
+     */
+    public boolean inClosedList(GridState state) {
+        int rank = PermutationRank.rank(state.getBoard(), cells);
+        return visited != null
+                && (visited.get(rank >>> 6) & (1L << rank)) != 0;
+    }
+
+    /**
+     * <p>
+     * Boards are never unmarked during a search.
+     * </p>
+     */
+    public void removeFromClosed(GridState state) {
+    }
+
+    /**
+     * <p>Inform user of Search method</p>
+     */
+    @Override
+    public void printType() {
+        System.out.println("Parallel BFS Method (" + threads + " threads)");
+    }
+}
@@ -0,0 +1,515 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>
+ * A pattern database for one group of tiles: for every way the tiles of the
+ * group can be placed on the grid, the fewest moves of those tiles needed to
+ * put them all in their goal places. Moves of any other tile are free, so
+ * the costs of disjoint groups can be added together and still never
+ * overestimate.
+ * </p>
+ * <p>
+ * The table is made by a breadth first search backwards from the goal over
+ * the placements of the group's tiles and the blank, and is stored as one
+ * byte per placement of the group's tiles. It can be saved to a file and
+ * memory-mapped back in, so it only has to be made once.
+ * </p>
+ * <p>
+ * Tables got through {@link #forGroup(GridState, int[], File)} are kept in
+ * memory and shared by every heuristic using them, so each file is only
+ * mapped once however many searches are run. Lookups do not change the
+ * table, so it is safe for any number of threads to share one.
+ * </p>
+ */
+public class PatternDatabase {
+    private static final int MAGIC = 0x50444231; // "PDB1"
+    private static final int UNSEEN = 0xFF;
+    private static final Logger LOGGER = Logger.getLogger(PatternDatabase.class
+            .getName());
+
+    // Tables already made or loaded, by file name, shared by every search.
+    private static final Map<String, PatternDatabase> DATABASES = new HashMap<String, PatternDatabase>();
+
+    private GridSize size;
+    private long goalBoard;
+    private int[] tiles;
+    private int cells;
+    private int entries;
+    // Offset of the table in the buffer, after the file header.
+    private int offset;
+    private ByteBuffer table;
+
+    /**
+     * <p>
+     * New pattern database for the given tiles of the goal state. The table
+     * is not made until {@link #generate()} or {@link #load(File)} is called.
+     * </p>
+     *
+     * @param goal
+     *            the goal state
+     * @param tiles
+     *            the tiles in the group, not including the blank
+     */
+    public PatternDatabase(GridState goal, int[] tiles) {
+        this.size = goal.getSize();
+        this.goalBoard = goal.getBoard();
+        this.tiles = tiles.clone();
+        cells = size.getCells();
+        entries = placements(cells, tiles.length);
+    }
+
+    /**
+     * <p>
+     * Get the pattern database for the given tiles of the goal, mapping it
+     * from its file in the given directory, or making and saving it there
+     * the first time it is needed. Once in memory it is kept for every later
+     * search to the same goal.
+     * </p>
+     * <p>
+     * A file that cannot be read is made again and saved over. If the table
+     * cannot be saved it is still used, and a warning is logged.
+     * </p>
+     *
+     * @param goal
+     *            the goal state
+     * @param tiles
+     *            the tiles in the group, not including the blank
+     * @param directory
+     *            where the tables are saved to and loaded from
+     * @return the pattern database, ready to use
+     */
+    public static synchronized PatternDatabase forGroup(GridState goal,
+            int[] tiles, File directory) {
+        PatternDatabase database = new PatternDatabase(goal, tiles);
+        String name = database.getFileName();
+        if (DATABASES.containsKey(name)) {
+            return DATABASES.get(name);
+        }
+        File file = new File(directory, name);
+        boolean loaded = false;
+        try {
+            loaded = database.load(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not load pattern database "
+                    + file + ", making it again", e);
+        }
+        if (!loaded) {
+            database.generate();
+            try {
+                database.save(file);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not save pattern database "
+                        + file + ", it will be made again next run", e);
+            }
+        }
+        DATABASES.put(name, database);
+        return database;
+    }
+
+    /**
+     * <p>
+     * Look up the cost of the group's tiles being at the given positions.
+     * </p>
+     *
+     * @param positions
+     *            position of every tile on the grid, indexed by tile
+     * @return fewest moves of the group's tiles to reach their goal places
+     */
+    public int getCost(int[] positions) {
+        return table.get(offset + rank(positions)) & 0xFF;
+    }
+
+    /**
+     * <p>
+     * Look up the cost of the group's tiles, with one of the tiles moved to
+     * a different position than it has in the given positions.
+     * </p>
+     *
+     * @param positions
+     *            position of every tile on the grid, indexed by tile
+     * @param tile
+     *            the tile moved
+     * @param position
+     *            where the tile moved to
+     * @return fewest moves of the group's tiles to reach their goal places
+     */
+    public int getCost(int[] positions, int tile, int position) {
+        int old = positions[tile];
+        positions[tile] = position;
+        int cost = getCost(positions);
+        positions[tile] = old;
+        return cost;
+    }
+
+    /**
+     * <p>
+     * Check if the given tile is in this group.
+     * </p>
+     *
+     * @param tile
+     *            the tile to look for
+     * @return True if the tile is one of the group's
+     */
+    public boolean hasTile(int tile) {
+        for (int t : tiles) {
+            if (t == tile) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Make the table by searching back from the goal. Each search state is
+     * the placement of the group's tiles plus the blank. Moving the blank
+     * onto a group tile costs 1, and moving it onto any other tile is free,
+     * so each level is first closed over free moves before the next level
+     * is started.
+     * </p>
+     */
+    public void generate() {
+        int k = tiles.length;
+        int blankRadix = cells - k;
+        byte[] distance = new byte[entries * blankRadix];
+        Arrays.fill(distance, (byte) UNSEEN);
+        long[] queued = new long[(distance.length + 63) >>> 6];
+        byte[] costs = new byte[entries];
+        Arrays.fill(costs, (byte) UNSEEN);
+
+        int[] goalPositions = new int[k + 1];
+        for (int i = 0; i < cells; i++) {
+            int tile = (int) ((goalBoard >>> (i << 2)) & 0xF);
+            if (tile == 0) {
+                goalPositions[k] = i;
+            }
+            for (int j = 0; j < k; j++) {
+                if (tiles[j] == tile) {
+                    goalPositions[j] = i;
+                }
+            }
+        }
+
+        IntList level = new IntList();
+        IntList next = new IntList();
+        next.add(rankState(goalPositions));
+        int[] state = new int[k + 1];
+        int[] digits = new int[k + 1];
+        int[] cellToTile = new int[cells];
+        int depth = 0;
+
+        while (next.size() > 0) {
+            IntList swap = level;
+            level = next;
+            next = swap;
+            next.clear();
+            // Claim this level's states, dropping any already reached.
+            int kept = 0;
+            for (int i = 0; i < level.size(); i++) {
+                int rank = level.get(i);
+                if ((distance[rank] & 0xFF) == UNSEEN) {
+                    distance[rank] = (byte) depth;
+                    level.set(kept++, rank);
+                }
+            }
+            level.truncate(kept);
+            // The level grows as free moves are found, so loop by index.
+            for (int i = 0; i < level.size(); i++) {
+                int rank = level.get(i);
+                int placement = rank / blankRadix;
+                if ((costs[placement] & 0xFF) == UNSEEN) {
+                    costs[placement] = (byte) depth;
+                }
+                unrankState(rank, state, digits);
+                Arrays.fill(cellToTile, -1);
+                for (int j = 0; j < k; j++) {
+                    cellToTile[state[j]] = j;
+                }
+                int blank = state[k];
+                for (int target : size.getNeighbours(blank)) {
+                    int moved = cellToTile[target];
+                    state[k] = target;
+                    if (moved >= 0) {
+                        state[moved] = blank;
+                    }
+                    int child = rankState(state);
+                    if (moved < 0) {
+                        // Free move, part of this same level.
+                        if ((distance[child] & 0xFF) == UNSEEN) {
+                            distance[child] = (byte) depth;
+                            level.add(child);
+                        }
+                    } else if ((distance[child] & 0xFF) == UNSEEN
+                            && (queued[child >>> 6] & (1L << child)) == 0) {
+                        queued[child >>> 6] |= 1L << child;
+                        next.add(child);
+                    }
+                    if (moved >= 0) {
+                        state[moved] = target;
+                    }
+                    state[k] = blank;
+                }
+            }
+            depth++;
+        }
+        offset = 0;
+        table = ByteBuffer.wrap(costs);
+    }
+
+    /**
+     * <p>
+     * Save the table to a file, with a header describing the grid, the goal
+     * and the group so it can be checked when loaded back in. The table is
+     * written to a temporary file first and then moved over the file in one
+     * step, so anything that has the file mapped, in this process or
+     * another, keeps the old whole file rather than seeing it cut short.
+     * </p>
+     *
+     * @param file
+     *            the file to save to
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public void save(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        File temporary = File.createTempFile(file.getName(), ".tmp", parent);
+        boolean moved = false;
+        try {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temporary)));
+            try {
+                writeHeader(out);
+                for (int i = 0; i < entries; i++) {
+                    out.writeByte(table.get(offset + i));
+                }
+            } finally {
+                out.close();
+            }
+            Files.move(temporary.toPath(), file.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } finally {
+            if (!moved) {
+                temporary.delete();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Memory-map a table saved by {@link #save(File)}. Nothing is copied onto
+     * the heap, lookups read straight from the mapped file.
+     * </p>
+     *
+     * @param file
+     *            the file to load
+     * @return True if the file held a table for this grid, goal and group
+     * @throws IOException
+     *             if the file could not be read
+     */
+    public boolean load(File file) throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            int headerLength = 4 * (4 + tiles.length) + 8;
+            if (channel.size() != headerLength + (long) entries) {
+                return false;
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+            if (mapped.getInt() != MAGIC || mapped.getInt() != size.getRows()
+                    || mapped.getInt() != size.getCols()
+                    || mapped.getLong() != goalBoard
+                    || mapped.getInt() != tiles.length) {
+                return false;
+            }
+            for (int tile : tiles) {
+                if (mapped.getInt() != tile) {
+                    return false;
+                }
+            }
+            offset = headerLength;
+            table = mapped;
+            return true;
+        } finally {
+            // The mapping stays valid after the channel is closed.
+            in.close();
+        }
+    }
+
+    /**
+     * <p>
+     * A file name that is unique to the grid, goal and group.
+     * </p>
+     *
+     * @return name for the table's file
+     */
+    public String getFileName() {
+        StringBuilder name = new StringBuilder("pdb-");
+        name.append(size.toString()).append('-');
+        name.append(Long.toHexString(goalBoard)).append('-');
+        for (int tile : tiles) {
+            name.append(Character.forDigit(tile, 16));
+        }
+        return name.append(".bin").toString();
+    }
+
+    private void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(size.getRows());
+        out.writeInt(size.getCols());
+        out.writeLong(goalBoard);
+        out.writeInt(tiles.length);
+        for (int tile : tiles) {
+            out.writeInt(tile);
+        }
+    }
+
+    /**
+     * <p>
+     * Rank the positions of the group's tiles among all placements of them,
+     * by counting each position among the cells not taken by earlier tiles.
+     * </p>
+     *
+     * @param positions
+     *            position of every tile on the grid, indexed by tile
+     * @return index into the table
+     */
+    private int rank(int[] positions) {
+        int rank = 0;
+        int used = 0;
+        for (int j = 0; j < tiles.length; j++) {
+            int position = positions[tiles[j]];
+            rank = rank * (cells - j)
+                    + position - Integer.bitCount(used & ((1 << position) - 1));
+            used |= 1 << position;
+        }
+        return rank;
+    }
+
+    /**
+     * <p>
+     * Rank a search state: the positions of the group's tiles followed by
+     * the position of the blank. The blank is the last digit, so dividing
+     * by the cells left over for it gives the rank of the tiles alone.
+     * </p>
+     */
+    private int rankState(int[] state) {
+        int rank = 0;
+        int used = 0;
+        for (int j = 0; j < state.length; j++) {
+            int position = state[j];
+            rank = rank * (cells - j)
+                    + position - Integer.bitCount(used & ((1 << position) - 1));
+            used |= 1 << position;
+        }
+        return rank;
+    }
+
+    /**
+     * <p>
+     * Turn the rank of a search state back into the positions of the group's
+     * tiles and the blank.
+     * </p>
+     */
+    private void unrankState(int rank, int[] state, int[] digits) {
+        for (int j = state.length - 1; j >= 0; j--) {
+            digits[j] = rank % (cells - j);
+            rank /= cells - j;
+        }
+        int used = 0;
+        for (int j = 0; j < state.length; j++) {
+            // The position is the digits[j]-th cell not already taken.
+            int free = digits[j];
+            int position = 0;
+            while (true) {
+                if ((used & (1 << position)) == 0) {
+                    if (free == 0) {
+                        break;
+                    }
+                    free--;
+                }
+                position++;
+            }
+            state[j] = position;
+            used |= 1 << position;
+        }
+    }
+
+    /**
+     * <p>
+     * Number of ways to place k distinct tiles on n cells.
+     * </p>
+     */
+    private static int placements(int n, int k) {
+        long count = 1;
+        for (int j = 0; j < k; j++) {
+            count *= n - j;
+        }
+        if (count * (n - k) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern of " + k
+                    + " tiles is too large for " + n + " cells");
+        }
+        return (int) count;
+    }
+
+    /**
+     * <p>
+     * Growable list of ints, so the search levels don't box every rank.
+     * </p>
+     */
+    private static class IntList {
+        private int[] values = new int[1024];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                int[] bigger = new int[values.length * 2];
+                System.arraycopy(values, 0, bigger, 0, size);
+                values = bigger;
+            }
+            values[size++] = value;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        void set(int i, int value) {
+            values[i] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void truncate(int newSize) {
+            size = newSize;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * The total of the costs from disjoint additive pattern databases. The
+ * tiles are split into groups, each with its own PatternDatabase, and as no
+ * tile is in two groups the costs can be added without overestimating.
+ * </p>
+ * <p>
+ * Up to 9 cells (the 8 puzzle) every tile goes in a single group, which
+ * makes the cost exact. The 15 puzzle is split 6-6-3 by where the tiles
+ * are in the goal, and other sizes into groups of up to 6 tiles. Tables are
+ * loaded from the given directory if they have been made before, otherwise
+ * they are made and saved there, and are then shared with every other
+ * heuristic for the same goal.
+ * </p>
+ */
+public class PatternDatabaseHeuristic implements Heuristic {
+    private static final int GROUP_SIZE = 6;
+
+    // Cells of the goal whose tiles go in each group of the 15 puzzle.
+    private static final int[][] FIFTEEN_GROUPS = { { 0, 4, 5, 8, 9, 12 },
+            { 6, 7, 10, 11, 13, 14 }, { 1, 2, 3, 15 } };
+
+    private File directory;
+    private long goalBoard = -1L;
+    // A 2x3 and a 3x2 goal can pack to the same board, so the size is kept too.
+    private GridSize goalSize;
+    private PatternDatabase[] databases;
+    // Which database each tile's cost is in.
+    private PatternDatabase[] databaseOfTile;
+    private int[] positions;
+
+    /**
+     * <p>
+     * New pattern database heuristic keeping its tables in the default
+     * directory, see {@link DistanceTable#defaultDirectory()}.
+     * </p>
+     */
+    public PatternDatabaseHeuristic() {
+        this(DistanceTable.defaultDirectory());
+    }
+
+    /**
+     * <p>
+     * New pattern database heuristic keeping its tables in the given
+     * directory.
+     * </p>
+     *
+     * @param directory
+     *            where the tables are saved to and loaded from
+     */
+    public PatternDatabaseHeuristic(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * <p>
+     * Calculate the heuristic cost of any given state, the total of each
+     * group's cost.
+     * </p>
+     *
+     * @param child
+     *            the state to find the heuristic cost for
+     * @return the heuristic cost
+     */
+    public int getHeuristicCost(GridState child, GridState goal) {
+        prepare(goal);
+        findPositions(child.getBoard());
+        int cost = 0;
+        for (PatternDatabase database : databases) {
+            cost += database.getCost(positions);
+        }
+        return cost;
+    }
+
+    /**
+     * <p>
+     * Only the group holding the moved tile can change its cost, so only
+     * that group's table is looked up for the parent and the child.
+     * </p>
+     */
+    public int getHeuristicDelta(long board, int fromIndex, int toIndex,
+            GridState goal) {
+        prepare(goal);
+        findPositions(board);
+        int tile = (int) ((board >>> (fromIndex << 2)) & 0xF);
+        PatternDatabase database = databaseOfTile[tile];
+        return database.getCost(positions, tile, toIndex)
+                - database.getCost(positions);
+    }
+
+    /**
+     * <p>
+     * Load or make the tables for the given goal, unless they are already
+     * in place for it.
+     * </p>
+     *
+     * @param goal
+     *            the goal state
+     */
+    private void prepare(GridState goal) {
+        if (goal.getBoard() == goalBoard
+                && goal.getSize().equals(goalSize)) {
+            return;
+        }
+        int[][] groups = groupTiles(goal);
+        databases = new PatternDatabase[groups.length];
+        databaseOfTile = new PatternDatabase[goal.getLength()];
+        positions = new int[goal.getLength()];
+        for (int g = 0; g < groups.length; g++) {
+            databases[g] = PatternDatabase.forGroup(goal, groups[g],
+                    directory);
+            for (int tile : groups[g]) {
+                databaseOfTile[tile] = databases[g];
+            }
+        }
+        goalBoard = goal.getBoard();
+        goalSize = goal.getSize();
+    }
+
+    /**
+     * <p>
+     * Split the tiles of the goal into disjoint groups.
+     * </p>
+     *
+     * @param goal
+     *            the goal state
+     * @return the tiles of each group
+     */
+    private int[][] groupTiles(GridState goal) {
+        List<int[]> groups = new ArrayList<int[]>();
+        int cells = goal.getLength();
+        if (cells == 16 && goal.getSize().getCols() == 4) {
+            for (int[] groupCells : FIFTEEN_GROUPS) {
+                groups.add(tilesAt(goal, groupCells));
+            }
+        } else {
+            // Take the tiles in order of where they are in the goal.
+            int groupSize = cells <= 9 ? cells - 1 : GROUP_SIZE;
+            int[] all = new int[cells];
+            for (int i = 0; i < cells; i++) {
+                all[i] = i;
+            }
+            int[] tiles = tilesAt(goal, all);
+            for (int start = 0; start < tiles.length; start += groupSize) {
+                int[] group = new int[Math.min(groupSize, tiles.length - start)];
+                System.arraycopy(tiles, start, group, 0, group.length);
+                groups.add(group);
+            }
+        }
+        return groups.toArray(new int[groups.size()][]);
+    }
+
+    /**
+     * <p>
+     * The tiles at the given cells of the goal, leaving out the blank.
+     * </p>
+     */
+    private int[] tilesAt(GridState goal, int[] groupCells) {
+        int[] found = new int[groupCells.length];
+        int count = 0;
+        for (int cell : groupCells) {
+            int tile = goal.getTile(cell);
+            if (tile != 0) {
+                found[count++] = tile;
+            }
+        }
+        int[] group = new int[count];
+        System.arraycopy(found, 0, group, 0, count);
+        return group;
+    }
+
+    /**
+     * <p>
+     * Unpack where every tile of the board is.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     */
+    private void findPositions(long board) {
+        for (int i = 0; i < positions.length; i++) {
+            positions[(int) ((board >>> (i << 2)) & 0xF)] = i;
+        }
+    }
+}
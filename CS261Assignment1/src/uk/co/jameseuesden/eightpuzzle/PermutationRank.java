@@ -0,0 +1,123 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * Perfect hashing of packed boards by their rank among all permutations of
+ * their tiles (the Lehmer code). Every board of n cells gets a different
+ * number from 0 to n! - 1, so tables over whole state spaces can be plain
+ * arrays indexed by rank.
+ * </p>
+ * <p>
+ * Ranks are ints, so boards of up to 12 cells can be ranked.
+ * </p>
+ */
+public class PermutationRank {
+    public static final int MAX_CELLS = 12;
+
+    private PermutationRank() {
+    }
+
+    /**
+     * <p>
+     * Rank a packed board. Each tile is counted among the tiles not already
+     * seen before it, and those counts are the digits of a number whose
+     * i-th digit has base cells - i.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @param cells
+     *            number of cells in the board
+     * @return rank of the board, from 0 to cells! - 1
+     */
+    public static int rank(long board, int cells) {
+        int rank = 0;
+        int seen = 0;
+        for (int i = 0; i < cells; i++) {
+            int tile = (int) ((board >>> (i << 2)) & 0xF);
+            rank = rank * (cells - i) + tile
+                    - Integer.bitCount(seen & ((1 << tile) - 1));
+            seen |= 1 << tile;
+        }
+        return rank;
+    }
+
+    /**
+     * <p>
+     * Turn a rank back into its packed board.
+     * </p>
+     *
+     * @param rank
+     *            rank of the board
+     * @param cells
+     *            number of cells in the board
+     * @return the packed board
+     */
+    public static long unrank(int rank, int cells) {
+        int[] digits = new int[cells];
+        for (int i = cells - 1; i >= 0; i--) {
+            digits[i] = rank % (cells - i);
+            rank /= cells - i;
+        }
+        long board = 0L;
+        int seen = 0;
+        for (int i = 0; i < cells; i++) {
+            // The tile is the digits[i]-th smallest tile not yet placed.
+            int free = digits[i];
+            int tile = 0;
+            while (true) {
+                if ((seen & (1 << tile)) == 0) {
+                    if (free == 0) {
+                        break;
+                    }
+                    free--;
+                }
+                tile++;
+            }
+            board |= (long) tile << (i << 2);
+            seen |= 1 << tile;
+        }
+        return board;
+    }
+
+    /**
+     * <p>
+     * Number of different boards of the given number of cells.
+     * </p>
+     *
+     * @param cells
+     *            number of cells in the board
+     * @return cells!
+     */
+    public static int count(int cells) {
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException(cells
+                    + " cells are too many to rank");
+        }
+        int count = 1;
+        for (int i = 2; i <= cells; i++) {
+            count *= i;
+        }
+        return count;
+    }
+
+    /**
+     * <p>
+     * Find the blank tile of a packed board.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @param cells
+     *            number of cells in the board
+     * @return index of the blank tile
+     */
+    public static int blankIndex(long board, int cells) {
+        for (int i = 0; i < cells; i++) {
+            if (((board >>> (i << 2)) & 0xF) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
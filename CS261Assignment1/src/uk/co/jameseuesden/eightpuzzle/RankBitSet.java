@@ -0,0 +1,78 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A visited set of one bit per possible board, indexed by the board's
+ * PermutationRank. Every board of the 8 puzzle fits in 9! bits, 45KB, and
+ * adding or finding a board is a rank and a bit test, with no hashing or
+ * probing.
+ * </p>
+ * <p>
+ * The bits are made up front for every permutation, so it is only used for
+ * grids of up to 10 cells, 450KB.
+ * </p>
+ */
+public class RankBitSet extends VisitedSet {
+    public static final int MAX_CELLS = 10;
+
+    private int cells;
+    private long[] bits;
+    private int size = 0;
+
+    /**
+     * <p>
+     * New, empty bit set for boards of the given number of cells.
+     * </p>
+     *
+     * @param cells
+     *            number of cells in the boards
+     */
+    public RankBitSet(int cells) {
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException("No rank bit set for "
+                    + cells + " cells");
+        }
+        this.cells = cells;
+        bits = new long[(PermutationRank.count(cells) + 63) >>> 6];
+    }
+
+    public boolean add(long board) {
+        int rank = PermutationRank.rank(board, cells);
+        long bit = 1L << rank;
+        long word = bits[rank >>> 6];
+        if ((word & bit) != 0) {
+            return false;
+        }
+        bits[rank >>> 6] = word | bit;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long board) {
+        int rank = PermutationRank.rank(board, cells);
+        return (bits[rank >>> 6] & (1L << rank)) != 0;
+    }
+
+    public boolean remove(long board) {
+        int rank = PermutationRank.rank(board, cells);
+        long bit = 1L << rank;
+        long word = bits[rank >>> 6];
+        if ((word & bit) == 0) {
+            return false;
+        }
+        bits[rank >>> 6] = word & ~bit;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(bits, 0L);
+        size = 0;
+    }
+}
@@ -0,0 +1,180 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * How far a search may go before it gives up: a time limit or deadline, a
+ * most number of states expanded and a most memory held. A search can also
+ * be cancelled from another thread. Searches check their limits in their
+ * main loop, only looking at the clock every so often, and stop with the
+ * status of the limit they reached and the counts of what they did so far.
+ * </p>
+ * <p>
+ * Memory is not measured, as the heap is shared with every other search
+ * and with garbage not yet collected. It is worked out from the number of
+ * states a search holds in its open and closed lists, at
+ * {@link #BYTES_PER_STATE} each.
+ * </p>
+ * <p>
+ * Every limit is off until it is set. The time limit is counted from the
+ * start of each search, so limits can be kept for more than one search one
+ * after another, but once cancelled every search using them stops straight
+ * away.
+ * </p>
+ */
+public class SearchLimits {
+    // Rough size of a state held in a list, with its share of the list.
+    public static final int BYTES_PER_STATE = 64;
+
+    private long timeLimit = 0;
+    private long deadline = 0;
+    private boolean hasDeadline = false;
+    private long maxExpanded = 0;
+    private long maxMemory = 0;
+    private volatile boolean cancelled = false;
+
+    /**
+     * <p>
+     * New limits with every limit off.
+     * </p>
+     */
+    public SearchLimits() {
+    }
+
+    /**
+     * <p>
+     * New limits set from the system properties eightpuzzle.timelimit
+     * (milliseconds), eightpuzzle.maxexpanded (states) and
+     * eightpuzzle.maxmemory (bytes), where they are given.
+     * </p>
+     *
+     * @return the new limits
+     */
+    public static SearchLimits fromProperties() {
+        SearchLimits limits = new SearchLimits();
+        limits.setTimeLimit(Long.getLong("eightpuzzle.timelimit", 0));
+        limits.setMaxExpanded(Long.getLong("eightpuzzle.maxexpanded", 0));
+        limits.setMaxMemory(Long.getLong("eightpuzzle.maxmemory", 0));
+        return limits;
+    }
+
+    /**
+     * <p>
+     * Set how long each search may run, or 0 for no limit.
+     * </p>
+     *
+     * @param millis
+     *            time limit in milliseconds
+     */
+    public void setTimeLimit(long millis) {
+        timeLimit = Math.max(0, millis) * 1000000L;
+    }
+
+    public long getTimeLimit() {
+        return timeLimit / 1000000L;
+    }
+
+    /**
+     * <p>
+     * Set a time by which the search must stop, however long ago it
+     * started, such as the time a reply is due.
+     * </p>
+     *
+     * @param nanoTime
+     *            the deadline, as given by System.nanoTime()
+     */
+    public void setDeadline(long nanoTime) {
+        deadline = nanoTime;
+        hasDeadline = true;
+    }
+
+    /**
+     * <p>
+     * Set the most states a search may expand, or 0 for no limit.
+     * </p>
+     *
+     * @param states
+     *            most states expanded
+     */
+    public void setMaxExpanded(long states) {
+        maxExpanded = Math.max(0, states);
+    }
+
+    public long getMaxExpanded() {
+        return maxExpanded;
+    }
+
+    /**
+     * <p>
+     * Set the most memory a search may hold in its lists, or 0 for no
+     * limit.
+     * </p>
+     *
+     * @param bytes
+     *            most bytes held
+     */
+    public void setMaxMemory(long bytes) {
+        maxMemory = Math.max(0, bytes);
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * <p>
+     * Stop every search using these limits as soon as it next checks them.
+     * Safe to call from any thread.
+     * </p>
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * <p>
+     * Check a search against the limits. Safe to call from any thread.
+     * </p>
+     *
+     * @param expanded
+     *            states expanded so far
+     * @param held
+     *            states held in the open and closed lists
+     * @param startTime
+     *            when the search started, as given by System.nanoTime()
+     * @param checkClock
+     *            True to look at the clock too, which costs more than the
+     *            other checks so need not be done every time
+     * @return the status to stop with, or null to carry on
+     */
+    public SolveResult.Status check(long expanded, long held, long startTime,
+            boolean checkClock) {
+        if (cancelled) {
+            return SolveResult.Status.CANCELLED;
+        }
+        if (maxExpanded > 0 && expanded >= maxExpanded) {
+            return SolveResult.Status.NODE_LIMIT;
+        }
+        if (maxMemory > 0 && held * BYTES_PER_STATE > maxMemory) {
+            return SolveResult.Status.MEMORY_LIMIT;
+        }
+        if (checkClock && (timeLimit > 0 || hasDeadline)) {
+            long now = System.nanoTime();
+            if ((timeLimit > 0 && now - startTime > timeLimit)
+                    || (hasDeadline && now - deadline > 0)) {
+                return SolveResult.Status.TIMED_OUT;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "timeLimit=" + getTimeLimit() + "ms maxExpanded="
+                + maxExpanded + " maxMemory=" + maxMemory + " cancelled="
+                + cancelled;
+    }
+}
@@ -0,0 +1,53 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * Told about the progress of a search, for anything that wants to watch it,
+ * such as printing it to the console. Searches run without one unless it is
+ * given to them, so nothing is spent on reporting that nobody needs.
+ * </p>
+ */
+public interface SearchListener {
+
+    /**
+     * <p>
+     * A state has been taken from the frontier and its children are about
+     * to be made.
+     * </p>
+     *
+     * @param state
+     *            the state being expanded
+     */
+    public abstract void stateExpanded(GridState state);
+
+    /**
+     * <p>
+     * A path to the goal has been found, but the search is going on to look
+     * for a shorter one.
+     * </p>
+     *
+     * @param result
+     *            the path and what it took to find it so far
+     * @param found
+     *            the goal state linked back through its parents to the start
+     * @param bound
+     *            the path is at most this many times longer than the
+     *            shortest
+     */
+    public abstract void solutionFound(SolveResult result, GridState found,
+            double bound);
+
+    /**
+     * <p>
+     * The search has finished.
+     * </p>
+     *
+     * @param result
+     *            the result of the search
+     * @param found
+     *            the goal state linked back through its parents to the
+     *            start, or null if the goal was not found
+     */
+    public abstract void searchFinished(SolveResult result, GridState found);
+
+}
@@ -0,0 +1,94 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * Told the details of a search as it runs, to find out why a puzzle takes
+ * as long as it does: how many states were made and expanded, at what
+ * depths, how many were thrown away as already reached, how big the lists
+ * grew and how often the heuristic was worked out.
+ * </p>
+ * <p>
+ * Searches run without metrics unless given them. Parallel searches tell
+ * the same metrics from every thread, so they must be thread safe.
+ * </p>
+ */
+public interface SearchMetrics {
+
+    /**
+     * <p>
+     * A search has started.
+     * </p>
+     *
+     * @param search
+     *            name of the search method
+     */
+    public abstract void searchStarted(String search);
+
+    /**
+     * <p>
+     * States at the given depth have been expanded.
+     * </p>
+     *
+     * @param depth
+     *            depth of the states
+     * @param count
+     *            number of states expanded
+     */
+    public abstract void statesExpanded(int depth, int count);
+
+    /**
+     * <p>
+     * Child states have been made.
+     * </p>
+     *
+     * @param count
+     *            number of children made
+     */
+    public abstract void statesGenerated(int count);
+
+    /**
+     * <p>
+     * A child was thrown away, as its board had already been reached.
+     * </p>
+     */
+    public abstract void duplicatePruned();
+
+    /**
+     * <p>
+     * A board already reached was reached again by a cheaper path, and had
+     * its cost lowered or was put back in the open list.
+     * </p>
+     */
+    public abstract void stateReopened();
+
+    /**
+     * <p>
+     * The heuristic cost of a state was worked out, from scratch or as the
+     * change made by a move.
+     * </p>
+     */
+    public abstract void heuristicEvaluated();
+
+    /**
+     * <p>
+     * The current sizes of the open and closed lists.
+     * </p>
+     *
+     * @param open
+     *            states waiting to be expanded
+     * @param closed
+     *            states already expanded
+     */
+    public abstract void listSizes(int open, int closed);
+
+    /**
+     * <p>
+     * The search has finished.
+     * </p>
+     *
+     * @param result
+     *            the result of the search
+     */
+    public abstract void searchFinished(SolveResult result);
+
+}
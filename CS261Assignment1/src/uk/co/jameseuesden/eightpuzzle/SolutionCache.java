@@ -0,0 +1,348 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Keeps the moves of solves already made, so solving the same start and
+ * goal with the same mode again is a lookup rather than a search. Entries
+ * are keyed by the packed start and goal boards, the grid size and the
+ * mode, and the least recently used entry is dropped once the cache is
+ * full.
+ * </p>
+ * <p>
+ * Every part of an optimal path that runs on to the goal is also an
+ * optimal path, so when a search that always finds the fewest moves is
+ * put in the cache, every state along its path is kept with the moves
+ * left from there. A later solve that starts from any of those states is
+ * then found in the cache too.
+ * </p>
+ * <p>
+ * With a directory given, full solves are also saved there a file each,
+ * and looked for there when they are not in memory. Each file is replayed
+ * from its start before it is trusted.
+ * </p>
+ */
+public class SolutionCache {
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    private Map<Key, String> entries;
+    private File directory;
+    private long hits;
+    private long misses;
+    private long diskHits;
+    private long evictions;
+
+    /**
+     * <p>
+     * New cache of the default size, kept in memory only.
+     * </p>
+     */
+    public SolutionCache() {
+        this(DEFAULT_CAPACITY, null);
+    }
+
+    /**
+     * <p>
+     * New cache holding up to the given number of states in memory.
+     * </p>
+     *
+     * @param capacity
+     *            most entries kept in memory
+     * @param directory
+     *            where full solves are saved to and loaded from, or null to
+     *            keep them in memory only
+     */
+    public SolutionCache(final int capacity, File directory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1");
+        }
+        this.directory = directory;
+        // Access order, so the eldest entry is the least recently used.
+        entries = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * New cache of the default size, also saving full solves to the
+     * directory named by -Deightpuzzle.cache, if it is set.
+     * </p>
+     *
+     * @return the new cache
+     */
+    public static SolutionCache fromProperties() {
+        String directory = System.getProperty("eightpuzzle.cache");
+        return new SolutionCache(DEFAULT_CAPACITY,
+                directory == null ? null : new File(directory));
+    }
+
+    /**
+     * <p>
+     * Look up the moves from a start state to a goal state found by a mode.
+     * </p>
+     *
+     * @param start
+     *            the start state
+     * @param goal
+     *            the goal state
+     * @param mode
+     *            the search mode, as given to Solver
+     * @return the moves, or null if they are not in the cache
+     */
+    public String get(GridState start, GridState goal, String mode) {
+        Key key = new Key(start.getSize(), start.getBoard(), goal.getBoard(),
+                mode);
+        synchronized (this) {
+            String moves = entries.get(key);
+            if (moves != null) {
+                hits++;
+                return moves;
+            }
+        }
+        // Files are read outside the lock, so other solves are not held up.
+        String moves = directory == null ? null : load(key, start, goal);
+        synchronized (this) {
+            if (moves != null) {
+                hits++;
+                diskHits++;
+                entries.put(key, moves);
+            } else {
+                misses++;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * <p>
+     * Keep the moves from a start state to a goal state found by a mode.
+     * </p>
+     *
+     * @param start
+     *            the start state
+     * @param goal
+     *            the goal state
+     * @param mode
+     *            the search mode, as given to Solver
+     * @param moves
+     *            one of U, D, L or R per move of the blank tile
+     * @param optimal
+     *            True if the mode always finds the fewest moves, so every
+     *            state along the path can be kept too
+     */
+    public void put(GridState start, GridState goal, String mode,
+            String moves, boolean optimal) {
+        Key key = new Key(start.getSize(), start.getBoard(), goal.getBoard(),
+                mode);
+        synchronized (this) {
+            entries.put(key, moves);
+            if (optimal) {
+                GridSize size = start.getSize();
+                long board = start.getBoard();
+                int blank = start.getBlankIndex();
+                for (int i = 0; i < moves.length(); i++) {
+                    int target = blank
+                            + MoveLog.direction(moves.charAt(i), size.getCols());
+                    board = GridState.moveBlank(board, blank, target);
+                    blank = target;
+                    Key along = new Key(size, board, goal.getBoard(), mode);
+                    if (!entries.containsKey(along)) {
+                        entries.put(along, moves.substring(i + 1));
+                    }
+                }
+            }
+        }
+        if (directory != null) {
+            save(key, moves);
+        }
+    }
+
+    /**
+     * <p>
+     * Drop everything kept in memory and reset the counts. Files already
+     * saved are left alone.
+     * </p>
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+        diskHits = 0;
+        evictions = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * <p>
+     * Share of lookups found in the cache.
+     * </p>
+     *
+     * @return hits over all lookups, or 0 if there have been none
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "entries=" + entries.size() + " hits=" + hits + " misses="
+                + misses + " diskHits=" + diskHits + " evictions="
+                + evictions;
+    }
+
+    /**
+     * <p>
+     * Read a full solve saved by {@link #save(Key, String)}, checking its
+     * moves are legal and take the start state to the goal.
+     * </p>
+     *
+     * @return the moves, or null if there is no file or it is no good
+     */
+    private String load(Key key, GridState start, GridState goal) {
+        File file = new File(directory, key.getFileName());
+        if (!file.isFile()) {
+            return null;
+        }
+        String moves;
+        try {
+            BufferedReader in = new BufferedReader(new FileReader(file));
+            try {
+                moves = in.readLine();
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (moves == null) {
+            return null;
+        }
+        moves = moves.trim();
+        GridSize size = start.getSize();
+        long board = start.getBoard();
+        int blank = start.getBlankIndex();
+        for (int i = 0; i < moves.length(); i++) {
+            char letter = moves.charAt(i);
+            if ("UDLR".indexOf(letter) < 0) {
+                return null;
+            }
+            int direction = MoveLog.direction(letter, size.getCols());
+            if (!size.canMove(blank, direction)) {
+                return null;
+            }
+            board = GridState.moveBlank(board, blank, blank + direction);
+            blank += direction;
+        }
+        return board == goal.getBoard() ? moves : null;
+    }
+
+    /**
+     * <p>
+     * Save a full solve to a file of its own in the cache's directory.
+     * </p>
+     */
+    private void save(Key key, String moves) {
+        directory.mkdirs();
+        try {
+            BufferedWriter out = new BufferedWriter(new FileWriter(new File(
+                    directory, key.getFileName())));
+            try {
+                out.write(moves);
+                out.newLine();
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            // The solve is still in memory, it just will not outlive it.
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * <p>
+     * A start board, goal board, grid size and mode.
+     * </p>
+     */
+    private static class Key {
+        private GridSize size;
+        private long start;
+        private long goal;
+        private String mode;
+
+        Key(GridSize size, long start, long goal, String mode) {
+            this.size = size;
+            this.start = start;
+            this.goal = goal;
+            this.mode = mode;
+        }
+
+        /**
+         * <p>
+         * A file name that is unique to the key, as long as the mode is
+         * one Solver knows.
+         * </p>
+         */
+        String getFileName() {
+            return "solution-" + size + "-" + mode + "-"
+                    + Long.toHexString(start) + "-" + Long.toHexString(goal)
+                    + ".txt";
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return start == other.start && goal == other.goal
+                    && size.equals(other.size) && mode.equals(other.mode);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = (int) (start ^ (start >>> 32));
+            hash = 31 * hash + (int) (goal ^ (goal >>> 32));
+            hash = 31 * hash + size.hashCode();
+            return 31 * hash + mode.hashCode();
+        }
+    }
+}
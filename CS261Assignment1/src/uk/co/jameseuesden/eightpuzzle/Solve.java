@@ -1,10 +1,27 @@
 package uk.co.jameseuesden.eightpuzzle;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.InputMismatchException;
 /**
  * <p>Main method of the 8 Puzzle solver,
  * takes input from the commands line:
- * StartState - GoalState - Mode.
+ * StartState - GoalState - Mode - [Trace].
+ * <br />
+ * Trace is off, summary (the default), full, or a
+ * number n to print every n-th state expanded.
+ * <br />
+ * Run with -Deightpuzzle.jmx=true to watch each search's
+ * metrics over JMX, -Deightpuzzle.cache=directory to
+ * keep solves found between runs,
+ * -Deightpuzzle.tables=directory to keep the distance
+ * tables and pattern databases somewhere other than pdb, or
+ * -Deightpuzzle.timelimit=milliseconds,
+ * -Deightpuzzle.maxexpanded=states or
+ * -Deightpuzzle.maxmemory=bytes to limit each search.
+ * <br />
+ * Or, to solve a whole file of puzzles:
+ * batch - PuzzleFile - GoalState - Mode - OutputFile - [Threads].
  * <br />
  * Sends this data to the Driver class to begin the
  * solving method.
@@ -16,13 +33,31 @@ public class Solve {
     
     public static void main(String[] args) {
         
-        if (args.length == 3) {
+        if ((args.length == 5 || args.length == 6) && args[0].equals("batch")) {
+            int threads = args.length == 6 ? Integer.parseInt(args[5])
+                    : Runtime.getRuntime().availableProcessors();
+            BatchSolver batch = new BatchSolver(args[3], threads);
+            try {
+                long startTime = System.currentTimeMillis();
+                int count = batch.solveFile(new File(args[1]), new File(args[2]),
+                        new File(args[4]));
+                System.out.println("Solved " + count + " puzzles in "
+                        + (System.currentTimeMillis() - startTime) + "ms");
+                if (batch.getCache() != null) {
+                    System.out.println("Cache: " + batch.getCache());
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        else if (args.length == 3 || args.length == 4) {
             String startState = args[0];
             String goalState = args[1];
-            String mode = args[args.length-1];
+            String mode = args[2];
+            String trace = args.length == 4 ? args[3] : "summary";
             
             @SuppressWarnings("unused")
-            Driver driver = new Driver(startState, goalState, mode);
+            Driver driver = new Driver(startState, goalState, mode, trace);
         }
         else {
             throw new InputMismatchException();
@@ -0,0 +1,152 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * The outcome of a solve: whether the goal was found, the moves of the blank
+ * tile that get there from the start, and what it took to find them.
+ * </p>
+ */
+public class SolveResult {
+
+    /**
+     * <p>
+     * How a solve ended.
+     * </p>
+     */
+    public enum Status {
+        /** The goal was found. */
+        SOLVED,
+        /** The start state can never reach the goal, so nothing was searched. */
+        UNSOLVABLE,
+        /** Every reachable state was searched without finding the goal. */
+        EXHAUSTED,
+        /**
+         * The search was stopped by its time limit. Any path found may not
+         * be the shortest.
+         */
+        TIMED_OUT,
+        /**
+         * The search was stopped by its limit on states expanded. Any path
+         * found may not be the shortest.
+         */
+        NODE_LIMIT,
+        /**
+         * The search was stopped by its memory limit. Any path found may not
+         * be the shortest.
+         */
+        MEMORY_LIMIT,
+        /**
+         * The search was stopped by being cancelled. Any path found may not
+         * be the shortest.
+         */
+        CANCELLED
+    }
+
+    private Status status;
+    private String moves;
+    private int expandedStates;
+    private int generatedStates;
+    private int peakFrontier;
+    private long elapsedNanos;
+
+    /**
+     * <p>
+     * New result of a solve.
+     * </p>
+     *
+     * @param status
+     *            how the solve ended
+     * @param moves
+     *            moves of the blank tile from start to goal, or null if the
+     *            goal was not found. A partial result may have the best
+     *            moves found before the search was stopped.
+     * @param expandedStates
+     *            number of states expanded
+     * @param generatedStates
+     *            number of child states made
+     * @param peakFrontier
+     *            most states waiting to be expanded at any one time
+     * @param elapsedNanos
+     *            time taken by the search
+     */
+    public SolveResult(Status status, String moves, int expandedStates,
+            int generatedStates, int peakFrontier, long elapsedNanos) {
+        this.status = status;
+        this.moves = moves;
+        this.expandedStates = expandedStates;
+        this.generatedStates = generatedStates;
+        this.peakFrontier = peakFrontier;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * <p>
+     * Check if the search was stopped by one of its SearchLimits before it
+     * finished, so the counts are only of what it did up to then. Any moves
+     * it has are the best found by then, which may not be the shortest.
+     * </p>
+     *
+     * @return True if the search was stopped early
+     */
+    public boolean isPartial() {
+        return status == Status.TIMED_OUT || status == Status.NODE_LIMIT
+                || status == Status.MEMORY_LIMIT
+                || status == Status.CANCELLED;
+    }
+
+    /**
+     * <p>
+     * The moves of the blank tile from the start state to the goal, one
+     * letter each: U(p), D(own), L(eft) or R(ight).
+     * </p>
+     *
+     * @return the moves, or null if the goal was not found
+     *         before the search finished or was stopped
+     */
+    public String getMoves() {
+        return moves;
+    }
+
+    /**
+     * <p>
+     * Number of moves in the solution.
+     * </p>
+     *
+     * @return depth of the goal, or -1 if it was not found
+     */
+    public int getDepth() {
+        return moves == null ? -1 : moves.length();
+    }
+
+    public int getExpandedStates() {
+        return expandedStates;
+    }
+
+    public int getGeneratedStates() {
+        return generatedStates;
+    }
+
+    public int getPeakFrontier() {
+        return peakFrontier;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return status + " depth=" + getDepth() + " moves=" + moves
+                + " expanded=" + expandedStates + " generated="
+                + generatedStates + " peakFrontier=" + peakFrontier
+                + " elapsedNanos=" + elapsedNanos;
+    }
+}
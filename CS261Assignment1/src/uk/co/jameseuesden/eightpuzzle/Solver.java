@@ -10,10 +10,14 @@ package uk.co.jameseuesden.eightpuzzle;
  * 
  */
 public class Solver {
+    // Weight on the heuristic cost of the wastar modes.
+    public static final double DEFAULT_WEIGHT = 2;
 
     private GridState grid;
     private GridState goalState;
     private GenericType search;
+    private String mode;
+    private SolutionCache cache;
 
     /**
      * New Solver sets up the goal state, the start state
@@ -26,18 +30,167 @@ public class Solver {
         goalState = new GridState(inputG);
         grid = new GridState(inputS);
         this.setMode(mode);
+        // Limits that are all off, so the search can still be cancelled.
+        search.setLimits(new SearchLimits());
+    }
+
+    /**
+     * New Solver for a grid of any size, such as the 15 puzzle.
+     * @param inputS
+     * @param inputG
+     * @param rows
+     * @param cols
+     * @param mode
+     */
+    public Solver(String inputS, String inputG, int rows, int cols, String mode) {
+        goalState = new GridState(inputG, rows, cols);
+        grid = new GridState(inputS, rows, cols);
+        this.setMode(mode);
+        search.setLimits(new SearchLimits());
     }
 
     
     /**
-     * <p>Prints out the grid and finds the path of solving</p>
+     * <p>Prints out the grid and finds the path of solving, printing
+     * only the goal state and its parent once found.</p>
      */
     public void begin() {
-        search.printType();
-        System.out.println("Start State:");
-        search.printGrid(grid);
-        System.out.println("-----\nBegin Expanding States");
-        search.findPath();
+        begin(TraceLevel.SUMMARY, 1);
+    }
+
+    /**
+     * <p>Prints out the grid and finds the path of solving, printing
+     * as much of the search as the trace level asks for.</p>
+     * @param level how much of the search to print
+     * @param every for EVERY_N, how many states are expanded between
+     *            each one printed
+     */
+    public void begin(TraceLevel level, int every) {
+        ConsoleListener console = new ConsoleListener(level, every);
+        if (level != TraceLevel.OFF) {
+            search.printType();
+            console.println("Start State:");
+            console.printGrid(grid);
+        }
+        console.println("-----");
+        if (!isSolvable()) {
+            console.searchFinished(solve(), null);
+        } else {
+            console.println("Begin Expanding States");
+            // With nothing to print, don't tell anything about the search.
+            search.setListener(level == TraceLevel.OFF ? null : console);
+            solve();
+            search.setListener(null);
+        }
+        console.close();
+    }
+
+    /**
+     * <p>Find the path of solving without printing anything, unless
+     * a listener has been given with {@link #setListener(SearchListener)}.
+     * If the start state can never reach the goal state, or a cache
+     * given with {@link #setCache(SolutionCache)} already has the
+     * moves, no search is run.</p>
+     * @return the moves found and what it took to find them
+     */
+    public SolveResult solve() {
+        if (!isSolvable()) {
+            return new SolveResult(SolveResult.Status.UNSOLVABLE, null, 0, 0,
+                    0, 0L);
+        }
+        if (cache == null) {
+            return search.findPath();
+        }
+        long startTime = System.nanoTime();
+        String moves = cache.get(grid, goalState, mode);
+        if (moves != null) {
+            // Nothing was expanded, the moves were only looked up.
+            SolveResult result = new SolveResult(SolveResult.Status.SOLVED,
+                    moves, 0, 0, 0, System.nanoTime() - startTime);
+            if (search.getListener() != null) {
+                search.getListener().searchFinished(result,
+                        search.replay(grid, moves));
+            }
+            return result;
+        }
+        SolveResult result = search.findPath();
+        // A stopped search may have a path, but it is not kept.
+        if (result.isSolved()) {
+            cache.put(grid, goalState, mode, result.getMoves(),
+                    search.isOptimal());
+        }
+        return result;
+    }
+
+    /**
+     * <p>Set the listener told about the progress of the search,
+     * or null to search without reporting anything.</p>
+     * @param listener
+     */
+    public void setListener(SearchListener listener) {
+        search.setListener(listener);
+    }
+
+    /**
+     * <p>Set the metrics told the details of the search, or null
+     * to search without keeping any.</p>
+     * @param metrics
+     */
+    public void setMetrics(SearchMetrics metrics) {
+        search.setMetrics(metrics);
+    }
+
+    /**
+     * <p>Set how long the search may run, or 0 for no limit. The
+     * arastar modes return the best path found by then, as a
+     * TIMED_OUT result, the others give up without one.</p>
+     * @param millis time limit in milliseconds
+     */
+    public void setTimeLimit(long millis) {
+        search.setTimeLimit(millis);
+    }
+
+    /**
+     * <p>Set the limits the search is stopped by, or null for
+     * none, though then it cannot be cancelled. A search stopped
+     * by a limit returns a partial result with the status of that
+     * limit.</p>
+     * @param limits
+     */
+    public void setLimits(SearchLimits limits) {
+        search.setLimits(limits);
+    }
+
+    /**
+     * <p>Stop the search as soon as it next checks its limits,
+     * from any thread.</p>
+     */
+    public void cancel() {
+        SearchLimits limits = search.getLimits();
+        if (limits != null) {
+            limits.cancel();
+        }
+    }
+
+    /**
+     * <p>Set the cache of solves looked in before searching, and
+     * kept up to date with every solve found, or null to always
+     * search.</p>
+     * @param cache
+     */
+    public void setCache(SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * <p>Check the start state can reach the goal state at all, by
+     * comparing their parities. Only half of all states can reach any
+     * given goal, and without this check every search would have to
+     * explore all of that half before giving up.</p>
+     * @return True if the goal can be reached from the start state
+     */
+    public boolean isSolvable() {
+        return grid.getParity() == goalState.getParity();
     }
 
     /**
@@ -48,6 +201,7 @@ public class Solver {
      * @param mode
      */
     private void setMode(String mode) {
+        this.mode = mode;
         switch (mode) {
         case ("bfs"):
             search = new BFSmethod(grid, goalState);
@@ -55,13 +209,75 @@ public class Solver {
         case ("dfs"):
             search = new DFSmethod(grid, goalState);
             break;
+        case ("iddfs"):
+            search = new IterativeDeepeningDFS(grid, goalState);
+            break;
+        case ("pbfs"):
+            // A byte per rank of every board only fits small grids.
+            if (grid.getLength() <= RankBitSet.MAX_CELLS) {
+                search = new ParallelBFS(grid, goalState);
+            } else {
+                search = new BFSmethod(grid, goalState);
+            }
+            break;
+        case ("bibfs"):
+            search = new BidirectionalBFS(grid, goalState);
+            break;
         case ("astar1"): // Manhattan
             search = new AStar(grid, goalState, 1);
             break;
         case ("astar2"): // Tiles out of place
             search = new AStar(grid, goalState, 2);
             break;
+        case ("astar3"): // Pattern Database
+            search = new AStar(grid, goalState, 3);
+            break;
+        case ("pastar1"): // Parallel, Manhattan
+            search = new ParallelAStar(grid, goalState, 1);
+            break;
+        case ("pastar2"): // Parallel, Tiles out of place
+            search = new ParallelAStar(grid, goalState, 2);
+            break;
+        case ("pastar3"): // Parallel, Pattern Database
+            search = new ParallelAStar(grid, goalState, 3);
+            break;
+        case ("wastar1"): // Weighted, Manhattan
+        case ("wastar2"): // Weighted, Tiles out of place
+        case ("wastar3"): // Weighted, Pattern Database
+            AStar weighted = new AStar(grid, goalState,
+                    mode.charAt(mode.length() - 1) - '0');
+            weighted.setWeight(DEFAULT_WEIGHT);
+            search = weighted;
+            break;
+        case ("arastar1"): // Anytime, Manhattan
+            search = new AnytimeAStar(grid, goalState, 1);
+            break;
+        case ("arastar2"): // Anytime, Tiles out of place
+            search = new AnytimeAStar(grid, goalState, 2);
+            break;
+        case ("arastar3"): // Anytime, Pattern Database
+            search = new AnytimeAStar(grid, goalState, 3);
+            break;
+        case ("idastar"):
+        case ("idastar1"): // Manhattan
+            search = new IDAStar(grid, goalState, 1);
+            break;
+        case ("idastar2"): // Tiles out of place
+            search = new IDAStar(grid, goalState, 2);
+            break;
+        case ("idastar3"): // Pattern Database
+            search = new IDAStar(grid, goalState, 3);
+            break;
+        case ("table"): // Exact distance table
+            // A table has a byte for every board, which only fits small grids.
+            if (grid.getLength() <= DistanceTable.MAX_CELLS) {
+                search = new TableSearch(grid, goalState);
+            } else {
+                search = new IDAStar(grid, goalState, 1);
+            }
+            break;
         default:
+            this.mode = "bfs";
             search = new BFSmethod(grid, goalState);
             break;
         }
@@ -0,0 +1,222 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * Hash table of GridStates keyed on their packed board, used for the open
+ * and closed lists so that checking whether a state has been seen before is
+ * O(1) rather than a scan of the whole list.
+ * </p>
+ * <p>
+ * Uses open addressing with linear probing over parallel arrays of keys and
+ * states, so no entry objects are made per state. An empty slot is one with
+ * no state in it.
+ * </p>
+ */
+public class StateTable {
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] keys;
+    private GridState[] states;
+    private int mask;
+    private int size = 0;
+
+    /**
+     * <p>
+     * New empty table with a default capacity, grown as states are added.
+     * </p>
+     */
+    public StateTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <p>
+     * New empty table sized to hold the expected number of states without
+     * having to grow.
+     * </p>
+     *
+     * @param expected
+     *            number of states expected to be held
+     */
+    public StateTable(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+        keys = new long[capacity];
+        states = new GridState[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * <p>
+     * Find the state held for the given board.
+     * </p>
+     *
+     * @param board
+     *            the packed board to look for
+     * @return the GridState held for the board, or null if there is none
+     */
+    public GridState get(long board) {
+        int slot = slotFor(board);
+        while (states[slot] != null) {
+            if (keys[slot] == board) {
+                return states[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Check if a state with the same board is held in the table.
+     * </p>
+     *
+     * @param state
+     *            the GridState to check for
+     * @return True if the table holds a state with the same board
+     */
+    public boolean contains(GridState state) {
+        return get(state.getBoard()) != null;
+    }
+
+    /**
+     * <p>
+     * Add a state to the table, replacing any state already held for the
+     * same board.
+     * </p>
+     *
+     * @param state
+     *            the GridState to add
+     */
+    public void put(GridState state) {
+        long board = state.getBoard();
+        int slot = slotFor(board);
+        while (states[slot] != null) {
+            if (keys[slot] == board) {
+                states[slot] = state;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = board;
+        states[slot] = state;
+        size++;
+        // Keep the load factor at or below a half so probe runs stay short.
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * <p>
+     * Remove the state held for the same board as the given state. Entries
+     * further along the probe run are shifted back so no tombstones are left
+     * behind.
+     * </p>
+     *
+     * @param state
+     *            the GridState to remove
+     * @return True if a state was removed
+     */
+    public boolean remove(GridState state) {
+        long board = state.getBoard();
+        int slot = slotFor(board);
+        while (states[slot] != null) {
+            if (keys[slot] == board) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * <p>
+     * Remove every state from the table, keeping its current capacity.
+     * </p>
+     */
+    public void clear() {
+        for (int i = 0; i < states.length; i++) {
+            states[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * <p>
+     * Fill the gap left at the given slot by moving back any later entry in
+     * the same run that would otherwise no longer be reachable.
+     * </p>
+     *
+     * @param gap
+     *            the slot being emptied
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (states[slot] == null) {
+                break;
+            }
+            int home = slotFor(keys[slot]);
+            // Only move the entry if the gap lies between its home and its slot.
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                states[gap] = states[slot];
+                gap = slot;
+            }
+        }
+        states[gap] = null;
+    }
+
+    /**
+     * <p>
+     * Double the capacity of the table and re-insert every state.
+     * </p>
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        GridState[] oldStates = states;
+        keys = new long[oldKeys.length * 2];
+        states = new GridState[oldStates.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldStates.length; i++) {
+            if (oldStates[i] != null) {
+                int slot = slotFor(oldKeys[i]);
+                while (states[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                states[slot] = oldStates[i];
+            }
+        }
+    }
+
+    private int slotFor(long board) {
+        return hash(board) & mask;
+    }
+
+    /**
+     * <p>
+     * Mix the bits of a packed board so that boards differing in only a few
+     * tiles still spread across the table.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @return hash of the board
+     */
+    public static int hash(long board) {
+        board ^= board >>> 33;
+        board *= 0xff51afd7ed558ccdL;
+        board ^= board >>> 33;
+        board *= 0xc4ceb9fe1a85ec53L;
+        board ^= board >>> 33;
+        return (int) board;
+    }
+}
@@ -0,0 +1,185 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.io.File;
+
+/**
+ * <p>
+ * Solve the 8 puzzle by looking it up in a DistanceTable of the exact moves
+ * from every board to the goal. From the start state, always step to a
+ * child that is one move closer to the goal, so a solution of depth d only
+ * takes d steps of at most 4 lookups each. The table is made the first time
+ * a goal is used and kept for every later solve to the same goal.
+ * </p>
+ * <p>
+ * Tables are only made for grids of up to {@link DistanceTable#MAX_CELLS}
+ * cells. For bigger grids, such as the 15 puzzle, the Solver's table mode
+ * searches with IDA* and Manhattan Distance instead, which also finds the
+ * shortest path.
+ * </p>
+ */
+public class TableSearch extends GenericType {
+    private GridState parent;
+    private File directory;
+    private DistanceTable table;
+    private GridState next;
+
+    /**
+     * <p>
+     * New table search sets the start and goal state, keeping its tables in
+     * the default directory, see {@link DistanceTable#defaultDirectory()}.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     */
+    public TableSearch(GridState input, GridState goal) {
+        this(input, goal, DistanceTable.defaultDirectory());
+    }
+
+    /**
+     * <p>
+     * New table search sets the start and goal state, keeping its tables in
+     * the given directory.
+     * </p>
+     *
+     * @param input
+     *            start state
+     * @param goal
+     *            goal state
+     * @param directory
+     *            where the tables are saved to and loaded from
+     */
+    public TableSearch(GridState input, GridState goal, File directory) {
+        parent = input;
+        this.goal = goal;
+        this.directory = directory;
+    }
+
+    /**
+     * <p>
+     * Walks down the distance table from the start state to the goal state.
+     * </p>
+     */
+    public SolveResult findPath() {
+        startSearch();
+        table = DistanceTable.forGoal(goal, directory);
+        GridState current = parent;
+        current.setDepth(0);
+
+        int distance = table.getDistance(current.getBoard());
+        if (distance == DistanceTable.UNREACHABLE) {
+            return finishSearch(null);
+        }
+        while (distance > 0) {
+            this.expand(current);
+            next = null;
+            this.findChildren(current);
+            /*
+             * A good table always has a child one move closer, so the table
+             * must be wrong, such as a stale file, and the walk can go no
+             * further.
+             */
+            if (next == null) {
+                return finishSearch(null);
+            }
+            current = next;
+            distance--;
+            if (this.limitReached()) {
+                return finishSearch(null);
+            }
+        }
+        this.frontierSize(1);
+        return finishSearch(current);
+    }
+
+    /**
+     * <p>
+     * Keep the child if it is one move closer to the goal than the current
+     * state. Only the first such child is kept.
+     * </p>
+     */
+    public void movement(int zeroIndex, int direction, GridState current) {
+        if (next == null && rulesForMovement(zeroIndex, direction)) {
+            long board = current.moveBlank(zeroIndex + direction);
+            this.generated();
+            if (table.getDistance(board) == table.getDistance(current
+                    .getBoard()) - 1) {
+                next = createChild(current, zeroIndex, direction);
+                next.setParent(current);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * The table search only holds the state it is stepping from.
+     * </p>
+     *
+     * @return the state most recently stepped to
+     */
+    public GridState getFirstInOpen() {
+        return next;
+    }
+
+    /**
+     * <p>
+     * The table search has no open list.
+     * </p>
+     */
+    public void addToOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * The table search has no open list.
+     * </p>
+     */
+    public boolean inOpenList(GridState state) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * The table search has no open list.
+     * </p>
+     */
+    public void removeFromOpen(GridState state) {
+    }
+
+    /**
+     * <p>
+     * The table search has no closed list.
+     * </p>
+     */
+    public void addToClosed(GridState state) {
+    }
+
+    /**
+     * <p>
+     * The table search has no closed list.
+     * </p>
+     */
+    public boolean inClosedList(GridState state) {
+        return false;
+    }
+
+    /**
+     * <p>
+     * The table search has no closed list.
+     * </p>
+     */
+    public void removeFromClosed(GridState state) {
+    }
+
+    /**
+     * <p>
+     * Inform the user of the search method used.
+     * </p>
+     */
+    @Override
+    public void printType() {
+        System.out.println("Distance Table Lookup");
+    }
+}
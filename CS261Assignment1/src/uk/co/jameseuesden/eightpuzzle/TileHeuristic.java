@@ -8,6 +8,11 @@ package uk.co.jameseuesden.eightpuzzle;
  */
 public class TileHeuristic implements Heuristic{
 
+    private long goalBoard = -1L;
+    // A 2x3 and a 3x2 goal can pack to the same board, so the size is kept too.
+    private GridSize goalSize;
+    private int[] goalTiles;
+
     @Override
     /**
      * <p>Calculate the heuristic cost of any given state. Tiles out of place.
@@ -16,21 +21,59 @@ public class TileHeuristic implements Heuristic{
      * @return the heuristic cost
      */
     public int getHeuristicCost(GridState child, GridState goal) {
+        prepare(goal);
         int cost = 0;
-        char[] state = child.getElements().toCharArray();
-        char[] goalState = goal.getElements().toCharArray();
         
         /*
          * To calculate the heuristic cost, in this case we
          * look for how many tiles are not in the correct 
-         * location.
+         * location. The blank tile is not counted.
          */
-        for(int i = 0; i < state.length; i++){
-            if(state[i] != goalState[i]){
+        for(int i = 0; i < goalTiles.length; i++){
+            int tile = child.getTile(i);
+            if(tile != 0 && tile != goalTiles[i]){
                 cost++;
             }
         }       
         return cost;
     }
 
+    @Override
+    /**
+     * <p>Only the moved tile can go in or out of place, so
+     * compare it against the goal at both of its indexes.
+     * </p>
+     */
+    public int getHeuristicDelta(long board, int fromIndex, int toIndex,
+            GridState goal) {
+        prepare(goal);
+        int tile = (int) ((board >>> (fromIndex << 2)) & 0xF);
+        int delta = 0;
+        if(goalTiles[fromIndex] == tile){
+            delta++;
+        }
+        if(goalTiles[toIndex] == tile){
+            delta--;
+        }
+        return delta;
+    }
+
+    /**
+     * <p>Unpack the goal state's tiles once, unless they are
+     * already unpacked for this goal.
+     * </p>
+     * @param goal the goal state
+     */
+    private void prepare(GridState goal) {
+        if(goal.getBoard() == goalBoard && goal.getSize().equals(goalSize)){
+            return;
+        }
+        goalTiles = new int[goal.getLength()];
+        for(int i = 0; i < goalTiles.length; i++){
+            goalTiles[i] = goal.getTile(i);
+        }
+        goalBoard = goal.getBoard();
+        goalSize = goal.getSize();
+    }
+
 }
@@ -0,0 +1,38 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * How much of a search the ConsoleListener prints.
+ * </p>
+ */
+public enum TraceLevel {
+    /** Nothing at all. */
+    OFF,
+    /** Only the goal state, its parent and the counts once it is found. */
+    SUMMARY,
+    /** The summary, and every n-th state expanded. */
+    EVERY_N,
+    /** The summary, and every state expanded. */
+    FULL;
+
+    /**
+     * <p>
+     * Read a trace level from the command line: off, summary or full, or a
+     * number n for every n-th state.
+     * </p>
+     *
+     * @param text
+     *            the trace level given
+     * @return the trace level, or SUMMARY if it could not be read
+     */
+    public static TraceLevel parse(String text) {
+        if (text.matches("\\d+")) {
+            return EVERY_N;
+        }
+        try {
+            return valueOf(text.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return SUMMARY;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * <p>
+ * Writes trace output on its own thread, so a search only has to hand over
+ * a finished String rather than wait on the console for every print. Text
+ * is queued, then written in batches through a large buffer, which is only
+ * flushed once the queue runs dry or when {@link #flush()} is called.
+ * </p>
+ * <p>
+ * The queue is bounded, so a search that traces faster than the console
+ * can keep up is made to wait rather than fill the memory with text.
+ * </p>
+ */
+public class TraceWriter {
+    private static final int QUEUE_SIZE = 8192;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Text to write, and latches to count down once all before them is out.
+    private BlockingQueue<Object> queue;
+    private Writer out;
+    private Thread thread;
+
+    /**
+     * <p>
+     * New trace writer, writing to the given stream on a new thread.
+     * </p>
+     *
+     * @param stream
+     *            where the trace is written
+     */
+    public TraceWriter(OutputStream stream) {
+        queue = new LinkedBlockingQueue<Object>(QUEUE_SIZE);
+        out = new BufferedWriter(new OutputStreamWriter(stream), BUFFER_SIZE);
+        thread = new Thread(new Runnable() {
+            public void run() {
+                drain();
+            }
+        }, "trace-writer");
+        // Never keep the application open just to finish a trace.
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * <p>
+     * Queue text to be written.
+     * </p>
+     *
+     * @param text
+     *            the text to write
+     */
+    public void print(String text) {
+        enqueue(text);
+    }
+
+    /**
+     * <p>
+     * Queue a line to be written.
+     * </p>
+     *
+     * @param text
+     *            the line to write
+     */
+    public void println(String text) {
+        enqueue(text + System.lineSeparator());
+    }
+
+    /**
+     * <p>
+     * Wait until everything queued so far has been written out.
+     * </p>
+     */
+    public void flush() {
+        CountDownLatch written = new CountDownLatch(1);
+        enqueue(written);
+        try {
+            written.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * <p>
+     * Write out everything queued and stop the thread.
+     * </p>
+     */
+    public void close() {
+        flush();
+        thread.interrupt();
+    }
+
+    private void enqueue(Object item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * <p>
+     * Take everything waiting in the queue at once and write it, flushing
+     * when there is nothing more waiting.
+     * </p>
+     */
+    private void drain() {
+        List<Object> batch = new ArrayList<Object>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Object item : batch) {
+                    write(item);
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    write(null);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed.
+        }
+    }
+
+    /**
+     * <p>
+     * Write text, or flush and count down a latch. A latch is always
+     * counted down, even if writing fails, so nothing waits forever.
+     * </p>
+     *
+     * @param item
+     *            text, a latch, or null to just flush
+     */
+    private void write(Object item) {
+        try {
+            if (item instanceof String) {
+                out.write((String) item);
+            } else {
+                out.flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (item instanceof CountDownLatch) {
+                ((CountDownLatch) item).countDown();
+            }
+        }
+    }
+}
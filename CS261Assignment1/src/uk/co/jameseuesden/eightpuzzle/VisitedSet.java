@@ -0,0 +1,74 @@
+package uk.co.jameseuesden.eightpuzzle;
+
+/**
+ * <p>
+ * The set of boards a search has already reached, holding only the boards
+ * themselves and never their GridStates, for searches that only need to
+ * know whether a board has been seen before.
+ * </p>
+ * <p>
+ * Grids small enough to rank every permutation of get a RankBitSet, a
+ * single bit per possible board, which covers the whole 8 puzzle in 45KB.
+ * Larger grids get a BoardSet, a hash set of packed boards.
+ * </p>
+ */
+public abstract class VisitedSet {
+
+    /**
+     * <p>
+     * Get the smallest visited set that can hold boards of the given size.
+     * </p>
+     *
+     * @param size
+     *            dimensions of the grid
+     * @return a new, empty visited set
+     */
+    public static VisitedSet forSize(GridSize size) {
+        if (size.getCells() <= RankBitSet.MAX_CELLS) {
+            return new RankBitSet(size.getCells());
+        }
+        return new BoardSet();
+    }
+
+    /**
+     * <p>
+     * Add a board to the set.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @return True if the board was not already in the set
+     */
+    public abstract boolean add(long board);
+
+    /**
+     * <p>
+     * Check if a board is in the set.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @return True if the board is in the set
+     */
+    public abstract boolean contains(long board);
+
+    /**
+     * <p>
+     * Take a board out of the set.
+     * </p>
+     *
+     * @param board
+     *            the packed board
+     * @return True if the board was in the set
+     */
+    public abstract boolean remove(long board);
+
+    public abstract int size();
+
+    /**
+     * <p>
+     * Remove every board from the set.
+     * </p>
+     */
+    public abstract void clear();
+}
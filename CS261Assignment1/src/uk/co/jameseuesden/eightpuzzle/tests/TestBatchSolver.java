@@ -0,0 +1,64 @@
+package uk.co.jameseuesden.eightpuzzle.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.co.jameseuesden.eightpuzzle.BatchSolver;
+import uk.co.jameseuesden.eightpuzzle.Solver;
+
+public class TestBatchSolver {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testResultsInOrder() throws IOException {
+        File goal = write("goal.txt", "0,1,2", "", "3,4,5", "", "6,7,8");
+        // The long puzzle first, so workers finish the later ones before it.
+        File puzzles = write("puzzles.txt",
+                "1,2,3,4,5,6,7,8,0",
+                "# skipped",
+                "1,2,0,3,4,5,6,7,8",
+                "1,2,x,3,4,5,6,7,8",
+                "",
+                "1,2,5,3,4,0,6,7,8",
+                "1,2,0,3,4,5,6,7,9",
+                "0,1,2,3,4,5,6,7,8");
+        File output = new File(folder.getRoot(), "results.csv");
+
+        int count = new BatchSolver("bfs", 4).solveFile(puzzles, goal, output);
+        assertEquals("Every puzzle line should be counted", 6, count);
+
+        List<String> rows = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+        assertEquals("Header and a row per puzzle", 7, rows.size());
+        assertEquals("line,status,depth,moves,expanded,generated,peakFrontier,elapsedNanos", rows.get(0));
+        int[] lines = {1, 3, 4, 6, 7, 8};
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue("Row " + (i + 1) + " should be for line " + lines[i],
+                    rows.get(i + 1).startsWith(lines[i] + ","));
+        }
+        String first = new Solver("123456780", "012345678", "bfs").solve().getMoves();
+        assertTrue("Long puzzle should be solved", rows.get(1).startsWith("1,SOLVED," + first.length() + "," + first + ","));
+        assertTrue("Short puzzle should be solved", rows.get(2).startsWith("3,SOLVED,2,LL,"));
+        assertEquals("Tile that is not a number", "4,ERROR,-1,,0,0,0,0", rows.get(3));
+        assertEquals("Tile that is not on the grid", "7,ERROR,-1,,0,0,0,0", rows.get(5));
+        assertTrue("Goal should need no moves", rows.get(6).startsWith("8,SOLVED,0,,"));
+    }
+
+    private File write(String name, String... lines) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+}
@@ -0,0 +1,58 @@
+package uk.co.jameseuesden.eightpuzzle.tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import uk.co.jameseuesden.eightpuzzle.BoardQueue;
+import uk.co.jameseuesden.eightpuzzle.BoardStack;
+
+public class TestBoardQueue {
+
+    @Test
+    public void testQueueWrapsAndGrows() {
+        BoardQueue queue = new BoardQueue(4);
+        // Move the front along so the boards wrap round the end of the ring.
+        for (int i = 0; i < 3; i++) {
+            queue.add(i, 0, 0, 0);
+            queue.remove();
+        }
+        for (int i = 0; i < 40; i++) {
+            queue.add(100 + i, i % 16, i, -i);
+        }
+        assertEquals("Queue should hold every board", 40, queue.size());
+        assertTrue("Board should be found", queue.contains(120));
+        assertTrue("Board should be removed", queue.remove(120));
+        for (int i = 0; i < 40; i++) {
+            if (i == 20) {
+                continue;
+            }
+            assertEquals("Boards should come out in order", 100 + i, queue.peekBoard());
+            assertEquals("Blank should be kept", i % 16, queue.peekBlankIndex());
+            assertEquals("Depth should be kept", i, queue.peekDepth());
+            assertEquals("Id should be kept", -i, queue.peekId());
+            queue.remove();
+        }
+        assertTrue("Queue should be empty", queue.isEmpty());
+    }
+
+    @Test
+    public void testStack() {
+        BoardStack stack = new BoardStack(2);
+        for (int i = 0; i < 40; i++) {
+            stack.push(100 + i, i % 16, i, -i);
+        }
+        assertTrue("Board should be removed", stack.remove(120));
+        for (int i = 39; i >= 0; i--) {
+            if (i == 20) {
+                continue;
+            }
+            assertEquals("Boards should come off last first", 100 + i, stack.peekBoard());
+            assertEquals("Blank should be kept", i % 16, stack.peekBlankIndex());
+            assertEquals("Depth should be kept", i, stack.peekDepth());
+            assertEquals("Id should be kept", -i, stack.peekId());
+            stack.pop();
+        }
+        assertTrue("Stack should be empty", stack.isEmpty());
+    }
+}
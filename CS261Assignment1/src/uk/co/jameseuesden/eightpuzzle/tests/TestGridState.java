@@ -35,6 +35,18 @@ public class TestGridState {
         assertTrue("Strings should match after new elements set", grid.equals(testGrid));
     }
 
+    @Test
+    public void testSetElementsRejectsBadTiles() {
+        for (String bad : new String[] {"12x345678", "120345679"}) {
+            try {
+                grid.setElements(bad);
+                fail(bad + " should not be accepted");
+            } catch (IllegalArgumentException e) {
+                assertEquals("Board should be left as it was", "120345678", grid.getElements());
+            }
+        }
+    }
+
     @Test
     public void testEqualsObject() {
         GridState testGrid = new GridState("120345678");
@@ -44,4 +56,44 @@ public class TestGridState {
         assertEquals("Strings should match", "120356478", testGrid.getElements());
     }
 
+    @Test
+    public void testPackedBoard() {
+        assertEquals("Blank index should be cached", 2, grid.getBlankIndex());
+        assertEquals("Tile should be read from its nibble", 1, grid.getTile(0));
+        assertEquals("Tile should be read from its nibble", 8, grid.getTile(8));
+        GridState testGrid = new GridState(grid.getBoard(), grid.getBlankIndex(), grid.getSize());
+        assertEquals("Strings should match from packed board", "120345678", testGrid.getElements());
+    }
+
+    @Test
+    public void testMoveBlank() {
+        GridState moved = new GridState(grid.moveBlank(5), 5, grid.getSize());
+        assertEquals("Blank should swap with the tile below", "125340678", moved.getElements());
+        assertEquals("Blank index should follow the move", 5, moved.getBlankIndex());
+        assertEquals("Moved tile should be in the old blank", 5, moved.getTile(2));
+    }
+
+    @Test
+    public void testFifteenPuzzle() {
+        GridState fifteen = new GridState("123456789abcdef0");
+        assertEquals("Square size should be worked out from the tiles", 4, fifteen.getSize().getCols());
+        assertEquals("Tiles above 9 should be read as hex", 15, fifteen.getTile(14));
+        assertEquals("Blank in the corner should only move up or left", 2, fifteen.getSize().getNeighbours(15).length);
+        assertTrue("Blank should move up a row of 4", fifteen.getSize().canMove(15, -4));
+        assertFalse("Blank should not wrap off the right edge", fifteen.getSize().canMove(11, 1));
+    }
+
+    @Test
+    public void testParity() {
+        GridState goal = new GridState("012345678");
+        assertEquals("A move should not change parity", goal.getParity(), new GridState("312045678").getParity());
+        assertFalse("Swapping two tiles should change parity",
+                goal.getParity() == new GridState("021345678").getParity());
+        GridState fifteen = new GridState("123456789abcdef0");
+        assertEquals("A move up should not change parity on an even width grid",
+                fifteen.getParity(), new GridState("123456789ab0defc").getParity());
+        assertFalse("Swapping two tiles should change parity on an even width grid",
+                fifteen.getParity() == new GridState("123456789abcdfe0").getParity());
+    }
+
 }
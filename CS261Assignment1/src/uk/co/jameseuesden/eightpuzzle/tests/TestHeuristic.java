@@ -0,0 +1,80 @@
+package uk.co.jameseuesden.eightpuzzle.tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.jameseuesden.eightpuzzle.GridState;
+import uk.co.jameseuesden.eightpuzzle.Heuristic;
+import uk.co.jameseuesden.eightpuzzle.ManhattanHeuristic;
+import uk.co.jameseuesden.eightpuzzle.TileHeuristic;
+
+public class TestHeuristic {
+
+    private GridState goal;
+    private GridState grid;
+
+    @Before
+    public void before(){
+        goal = new GridState("012345678");
+        grid = new GridState("724506831");
+    }
+
+    @Test
+    public void testManhattanCost() {
+        Heuristic heuristic = new ManhattanHeuristic();
+        assertEquals("Goal should cost nothing", 0, heuristic.getHeuristicCost(goal, goal));
+        assertEquals("Cost should be the total tile distance", 18, heuristic.getHeuristicCost(grid, goal));
+    }
+
+    @Test
+    public void testTileCost() {
+        Heuristic heuristic = new TileHeuristic();
+        assertEquals("Goal should cost nothing", 0, heuristic.getHeuristicCost(goal, goal));
+        assertEquals("Cost should be the tiles out of place", 8, heuristic.getHeuristicCost(grid, goal));
+    }
+
+    @Test
+    public void testManhattanDelta() {
+        checkDeltas(new ManhattanHeuristic());
+    }
+
+    @Test
+    public void testTileDelta() {
+        checkDeltas(new TileHeuristic());
+    }
+
+    @Test
+    public void testSameBoardOtherShape() {
+        // Both goals pack to the same board, but their tiles are laid out differently.
+        GridState wide = new GridState("123450", 2, 3);
+        GridState tall = new GridState("123450", 3, 2);
+        GridState state = new GridState("052341", 2, 3);
+        GridState tallState = new GridState("052341", 3, 2);
+        Heuristic heuristic = new ManhattanHeuristic();
+        int wideCost = heuristic.getHeuristicCost(state, wide);
+        int tallCost = new ManhattanHeuristic().getHeuristicCost(tallState, tall);
+        assertNotEquals("Shapes should give different costs", wideCost, tallCost);
+        assertEquals("Heuristic should not reuse the other shape's table",
+                tallCost, heuristic.getHeuristicCost(tallState, tall));
+    }
+
+    /**
+     * Walk the blank around the grid, checking every delta matches
+     * the difference of the full costs.
+     */
+    private void checkDeltas(Heuristic heuristic) {
+        int[] targets = {1, 2, 5, 4, 3, 0, 1, 4, 7, 8, 5, 4};
+        GridState current = goal;
+        for (int target : targets) {
+            int blank = current.getBlankIndex();
+            GridState child = new GridState(current.moveBlank(target), target, current.getSize());
+            int delta = heuristic.getHeuristicDelta(current.getBoard(), target, blank, goal);
+            assertEquals("Delta should match full costs",
+                    heuristic.getHeuristicCost(child, goal) - heuristic.getHeuristicCost(current, goal), delta);
+            current = child;
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package uk.co.jameseuesden.eightpuzzle.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.co.jameseuesden.eightpuzzle.GridState;
+import uk.co.jameseuesden.eightpuzzle.PatternDatabase;
+
+public class TestPatternDatabase {
+
+    private GridState goal;
+    private PatternDatabase database;
+
+    @Before
+    public void before(){
+        goal = new GridState("123456780");
+        database = new PatternDatabase(goal, new int[] {1, 2, 3, 4, 5, 6, 7, 8});
+        database.generate();
+    }
+
+    @Test
+    public void testExactCost() {
+        assertEquals("Goal should cost nothing", 0, database.getCost(positions(goal)));
+        assertEquals("One move from the goal should cost one", 1,
+                database.getCost(positions(new GridState("123456708"))));
+        assertEquals("Every tile in the pattern should give the exact depth", 20,
+                database.getCost(positions(new GridState("724506831"))));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File file = File.createTempFile("pdb", ".bin");
+        file.deleteOnExit();
+        database.save(file);
+        PatternDatabase loaded = new PatternDatabase(goal, new int[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertTrue("Saved table should load back in", loaded.load(file));
+        assertEquals("Loaded table should give the same cost", 20,
+                loaded.getCost(positions(new GridState("724506831"))));
+        PatternDatabase other = new PatternDatabase(goal, new int[] {1, 2, 3});
+        assertFalse("Table for another group should not load", other.load(file));
+    }
+
+    @Test
+    public void testSharedForGroup() throws IOException {
+        File directory = Files.createTempDirectory("pdb").toFile();
+        // A goal no other test uses, so the table is made here.
+        GridState small = new GridState("243150", 2, 3);
+        int[] tiles = {2, 4, 3, 1, 5};
+        PatternDatabase first = PatternDatabase.forGroup(small, tiles, directory);
+        assertSame("Same goal and group should share one table", first,
+                PatternDatabase.forGroup(small, tiles, directory));
+        File[] files = directory.listFiles();
+        assertEquals("Only the finished table should be left", 1, files.length);
+        assertEquals("Table should be saved under its own name",
+                first.getFileName(), files[0].getName());
+        files[0].delete();
+        directory.delete();
+    }
+
+    private int[] positions(GridState state) {
+        int[] positions = new int[state.getLength()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[state.getTile(i)] = i;
+        }
+        return positions;
+    }
+
+}
@@ -0,0 +1,102 @@
+package uk.co.jameseuesden.eightpuzzle.tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import uk.co.jameseuesden.eightpuzzle.GridState;
+import uk.co.jameseuesden.eightpuzzle.SolutionCache;
+import uk.co.jameseuesden.eightpuzzle.SolveResult;
+import uk.co.jameseuesden.eightpuzzle.Solver;
+
+public class TestSolutionCache {
+
+    @Test
+    public void testRepeatedSolveHits() {
+        SolutionCache cache = new SolutionCache();
+        SolveResult first = solve(cache, "724506831", "astar1");
+        SolveResult second = solve(cache, "724506831", "astar1");
+        assertEquals("Cached moves should be the same", first.getMoves(), second.getMoves());
+        assertEquals("Nothing should be expanded on a hit", 0, second.getExpandedStates());
+        assertEquals("One hit", 1, cache.getHits());
+        assertEquals("One miss", 1, cache.getMisses());
+    }
+
+    @Test
+    public void testModesKeptApart() {
+        SolutionCache cache = new SolutionCache();
+        solve(cache, "724506831", "astar1");
+        assertTrue("Another mode should search", solve(cache, "724506831", "bfs").getExpandedStates() > 0);
+    }
+
+    @Test
+    public void testPathStatesHit() {
+        SolutionCache cache = new SolutionCache();
+        SolveResult full = solve(cache, "724506831", "astar1");
+        // One move along the path, the rest of the path is still the shortest.
+        GridState start = new GridState("724506831");
+        GridState along = new GridState(start.moveBlank(start.getBlankIndex() + offset(full.getMoves().charAt(0))),
+                start.getBlankIndex() + offset(full.getMoves().charAt(0)), start.getSize());
+        String rest = cache.get(along, new GridState("012345678"), "astar1");
+        assertEquals("Rest of the path should be cached", full.getMoves().substring(1), rest);
+    }
+
+    @Test
+    public void testDfsPathStatesNotKept() {
+        SolutionCache cache = new SolutionCache();
+        solve(cache, "125340678", "dfs");
+        assertEquals("Only the start of a DFS path should be kept", 1, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDropped() {
+        SolutionCache cache = new SolutionCache(2, null);
+        GridState goal = new GridState("012345678");
+        GridState a = new GridState("102345678");
+        GridState b = new GridState("312045678");
+        GridState c = new GridState("125340678");
+        cache.put(a, goal, "bfs", "L", false);
+        cache.put(b, goal, "bfs", "U", false);
+        cache.get(a, goal, "bfs");
+        cache.put(c, goal, "bfs", "ULL", false);
+        assertNotNull("Recently used entry should be kept", cache.get(a, goal, "bfs"));
+        assertNull("Least recently used entry should be dropped", cache.get(b, goal, "bfs"));
+        assertEquals("One eviction", 1, cache.getEvictions());
+    }
+
+    @Test
+    public void testDiskTier() throws IOException {
+        File directory = new File(System.getProperty("java.io.tmpdir"), "solution-cache-" + System.nanoTime());
+        GridState goal = new GridState("012345678");
+        GridState start = new GridState("125340678");
+        new SolutionCache(16, directory).put(start, goal, "astar1", "ULL", true);
+
+        SolutionCache reloaded = new SolutionCache(16, directory);
+        assertEquals("Moves should be read back from disk", "ULL", reloaded.get(start, goal, "astar1"));
+        assertEquals("One hit from disk", 1, reloaded.getDiskHits());
+
+        // A file whose moves do not reach the goal is not trusted.
+        File[] files = directory.listFiles();
+        FileWriter out = new FileWriter(files[0]);
+        out.write("ULR\n");
+        out.close();
+        assertNull("Bad moves should be ignored", new SolutionCache(16, directory).get(start, goal, "astar1"));
+
+        files[0].delete();
+        directory.delete();
+    }
+
+    private SolveResult solve(SolutionCache cache, String start, String mode) {
+        Solver solver = new Solver(start, "012345678", mode);
+        solver.setCache(cache);
+        return solver.solve();
+    }
+
+    private int offset(char move) {
+        return move == 'U' ? -3 : move == 'D' ? 3 : move == 'L' ? -1 : 1;
+    }
+}
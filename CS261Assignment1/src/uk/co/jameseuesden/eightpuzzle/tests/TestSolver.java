@@ -0,0 +1,163 @@
+package uk.co.jameseuesden.eightpuzzle.tests;
+
+import static org.junit.Assert.*;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.co.jameseuesden.eightpuzzle.AStar;
+import uk.co.jameseuesden.eightpuzzle.GridSize;
+import uk.co.jameseuesden.eightpuzzle.GridState;
+import uk.co.jameseuesden.eightpuzzle.MetricsRecorder;
+import uk.co.jameseuesden.eightpuzzle.OpenList;
+import uk.co.jameseuesden.eightpuzzle.SearchLimits;
+import uk.co.jameseuesden.eightpuzzle.SolutionCache;
+import uk.co.jameseuesden.eightpuzzle.SolveResult;
+import uk.co.jameseuesden.eightpuzzle.Solver;
+
+public class TestSolver {
+
+    // Tables made by the table and pattern database modes go here, not in pdb/.
+    @ClassRule
+    public static TemporaryFolder tables = new TemporaryFolder();
+
+    @BeforeClass
+    public static void beforeClass() {
+        System.setProperty("eightpuzzle.tables", tables.getRoot().getPath());
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        System.clearProperty("eightpuzzle.tables");
+    }
+
+    @Test
+    public void testSolveResult() {
+        SolveResult result = new Solver("120345678", "012345678", "bfs").solve();
+        assertTrue("Goal should be found", result.isSolved());
+        assertEquals("Blank should move left twice", "LL", result.getMoves());
+        assertEquals("Depth should count the moves", 2, result.getDepth());
+        assertTrue("States should have been expanded", result.getExpandedStates() > 0);
+    }
+
+    @Test
+    public void testSameMovesForEveryMode() {
+        String[] modes = { "bfs", "bibfs", "iddfs", "pbfs", "table", "astar1", "astar2",
+                "pastar1", "pastar2", "pastar3", "idastar1" };
+        for (String mode : modes) {
+            SolveResult result = new Solver("125340678", "012345678", mode).solve();
+            assertEquals("Depth of " + mode, 3, result.getDepth());
+            assertLegalPath(mode, "125340678", "012345678", result.getMoves());
+        }
+        // DFS is not optimal, so only check its path gets there.
+        SolveResult dfs = new Solver("125340678", "012345678", "dfs").solve();
+        assertTrue("dfs should find the goal", dfs.isSolved());
+        assertLegalPath("dfs", "125340678", "012345678", dfs.getMoves());
+    }
+
+    /**
+     * Make each move from the start, checking the blank stays on the
+     * grid, and check the goal is where it ends up.
+     */
+    private void assertLegalPath(String mode, String start, String goal, String moves) {
+        GridState current = new GridState(start);
+        GridSize size = current.getSize();
+        int cols = size.getCols();
+        for (char move : moves.toCharArray()) {
+            int blank = current.getBlankIndex();
+            int target;
+            switch (move) {
+            case 'U': target = blank - cols; break;
+            case 'D': target = blank + cols; break;
+            case 'L': target = blank % cols == 0 ? -1 : blank - 1; break;
+            case 'R': target = blank % cols == cols - 1 ? -1 : blank + 1; break;
+            default: target = -1;
+            }
+            assertTrue(mode + " made an illegal move " + move, target >= 0 && target < size.getCells());
+            current = new GridState(current.moveBlank(target), target, size);
+        }
+        assertEquals(mode + " should end on the goal", goal, current.getElements());
+    }
+
+    @Test
+    public void testTableForEachGridShape() {
+        // Both goals pack to the same board, but need tables of their own.
+        SolveResult wide = new Solver("123405", "123450", 2, 3, "table").solve();
+        assertEquals("2x3 blank should move right", "R", wide.getMoves());
+        SolveResult tall = new Solver("123054", "123450", 3, 2, "table").solve();
+        assertTrue("3x2 goal should be found", tall.isSolved());
+        assertEquals("3x2 blank should move down", "D", tall.getMoves());
+    }
+
+    @Test
+    public void testUnsolvable() {
+        SolveResult result = new Solver("021345678", "012345678", "bfs").solve();
+        assertEquals("Start state should not reach the goal",
+                SolveResult.Status.UNSOLVABLE, result.getStatus());
+        assertNull("There should be no moves", result.getMoves());
+        assertEquals("Nothing should be expanded", 0, result.getExpandedStates());
+    }
+
+    @Test
+    public void testMetrics() {
+        Solver solver = new Solver("125340678", "012345678", "astar1");
+        MetricsRecorder metrics = new MetricsRecorder();
+        solver.setMetrics(metrics);
+        SolveResult result = solver.solve();
+        assertEquals("Expanded states should match", result.getExpandedStates(), metrics.getStatesExpanded());
+        assertEquals("Generated states should match", result.getGeneratedStates(), metrics.getStatesGenerated());
+        assertTrue("Children back to the parent should be pruned", metrics.getDuplicatesPruned() > 0);
+        assertTrue("Heuristic should be worked out", metrics.getHeuristicEvaluations() > 0);
+        assertEquals("Start state should be expanded at depth 0", 1, metrics.getExpandedByDepth()[0]);
+        assertEquals("One search should have finished", 1, metrics.getSearchesFinished());
+    }
+
+    @Test
+    public void testTieBreak() {
+        AStar plain = new AStar(new GridState("867254301"), new GridState("123456780"), 1);
+        plain.setTieBreak(OpenList.TieBreak.NONE);
+        SolveResult none = plain.findPath();
+        SolveResult deepest = new AStar(new GridState("867254301"), new GridState("123456780"), 1).findPath();
+        assertEquals("Tie breaks should not change the depth", none.getDepth(), deepest.getDepth());
+        assertEquals("Should be the shortest path", 31, deepest.getDepth());
+        assertTrue("Deepest first should expand fewer states", deepest.getExpandedStates() < none.getExpandedStates());
+    }
+
+    @Test
+    public void testWeighted() {
+        SolveResult weighted = new Solver("867254301", "123456780", "wastar1").solve();
+        assertTrue("Weighted path should be within twice the shortest", weighted.getDepth() >= 31 && weighted.getDepth() <= 62);
+        SolveResult anytime = new Solver("867254301", "123456780", "arastar1").solve();
+        assertEquals("Anytime search should end on the shortest path", 31, anytime.getDepth());
+    }
+
+    @Test
+    public void testLimits() {
+        Solver solver = new Solver("867254301", "123456780", "bfs");
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxExpanded(100);
+        solver.setLimits(limits);
+        SolveResult result = solver.solve();
+        assertEquals("Should stop at the node limit", SolveResult.Status.NODE_LIMIT, result.getStatus());
+        assertTrue("Should be a partial result", result.isPartial());
+        assertEquals("Should expand no more than allowed", 100, result.getExpandedStates());
+
+        Solver anytime = new Solver("867254301", "123456780", "arastar1");
+        SearchLimits few = new SearchLimits();
+        few.setMaxExpanded(1000);
+        anytime.setLimits(few);
+        SolutionCache cache = new SolutionCache();
+        anytime.setCache(cache);
+        SolveResult best = anytime.solve();
+        assertEquals("Anytime search should stop at the node limit", SolveResult.Status.NODE_LIMIT, best.getStatus());
+        assertNotNull("Best path so far should be kept", best.getMoves());
+        assertNull("Stopped path should not be cached", cache.get(new GridState("867254301"), new GridState("123456780"), "arastar1"));
+
+        Solver cancelled = new Solver("867254301", "123456780", "idastar1");
+        cancelled.cancel();
+        assertEquals("Should be cancelled", SolveResult.Status.CANCELLED, cancelled.solve().getStatus());
+    }
+}
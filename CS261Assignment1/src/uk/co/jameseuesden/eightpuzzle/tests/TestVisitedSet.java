@@ -0,0 +1,57 @@
+package uk.co.jameseuesden.eightpuzzle.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.co.jameseuesden.eightpuzzle.BoardSet;
+import uk.co.jameseuesden.eightpuzzle.GridState;
+import uk.co.jameseuesden.eightpuzzle.RankBitSet;
+import uk.co.jameseuesden.eightpuzzle.VisitedSet;
+
+public class TestVisitedSet {
+
+    @Test
+    public void testRankBitSet() {
+        checkSet(new RankBitSet(9), new GridState("724506831"), new GridState("012345678"));
+    }
+
+    @Test
+    public void testBoardSet() {
+        checkSet(new BoardSet(), new GridState("123456789abcdef0"), new GridState("123456789abcde0f"));
+    }
+
+    @Test
+    public void testBoardSetGrows() {
+        VisitedSet set = new BoardSet();
+        GridState grid = new GridState("123456789abcdef0");
+        long board = grid.getBoard();
+        int blank = grid.getBlankIndex();
+        // Walk the blank around at random to reach many boards.
+        Random random = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            int[] neighbours = grid.getSize().getNeighbours(blank);
+            int target = neighbours[random.nextInt(neighbours.length)];
+            board = GridState.moveBlank(board, blank, target);
+            blank = target;
+            set.add(board);
+        }
+        assertTrue("Set should hold many boards", set.size() > 1000);
+        assertTrue("Last board should be found", set.contains(board));
+    }
+
+    private void checkSet(VisitedSet set, GridState a, GridState b) {
+        assertTrue("New board should be added", set.add(a.getBoard()));
+        assertFalse("Board should not be added twice", set.add(a.getBoard()));
+        assertTrue("Board should be found", set.contains(a.getBoard()));
+        assertFalse("Other board should not be found", set.contains(b.getBoard()));
+        assertEquals("Set should hold one board", 1, set.size());
+        assertTrue("Board should be removed", set.remove(a.getBoard()));
+        assertFalse("Board should be gone", set.contains(a.getBoard()));
+        set.add(b.getBoard());
+        set.clear();
+        assertEquals("Set should be empty", 0, set.size());
+    }
+}